@@ -0,0 +1,29 @@
+#!/bin/sh
+
+# p99 of /reservation/availability while the reservation table grows,
+# answered by the database query and by the availability index
+for rows in 10000 100000 1000000 10000000; do
+  echo "------------ $rows RESERVATIONS ------------"
+  kubectl exec -i postgresql-reservation-0 -- \
+    env PGPASSWORD=pass psql -U user -d reservation -v rows=$rows \
+    < services/reservation-service/benchmark/seed-reservations.sql
+  for enabled in false true; do
+    echo "------------ AVAILABILITY INDEX ENABLED $enabled ------------"
+    # restarting the pods reloads the index with the seeded reservations
+    kubectl set env deployment/reservation-service AVAILABILITY_INDEX_ENABLED=$enabled
+    kubectl rollout restart deployment/reservation-service
+    kubectl rollout status deployment/reservation-service --timeout=300s
+    if [ "$enabled" = true ]; then
+      # until the index is loaded the requests still go to the database
+      until kubectl logs deployment/reservation-service | grep -q "Availability index loaded"; do
+        sleep 5
+      done
+    fi
+    kubectl delete job k6-benchmark --ignore-not-found=true
+    helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+      --set script=availability.js \
+      --set targetUrl=http://reservation-service:80/reservation/availability
+    kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+    kubectl logs job/k6-benchmark | grep http_req_duration
+  done
+done
@@ -0,0 +1,10 @@
+#!/bin/sh
+
+# 64 concurrent writers reserving the same few cars
+kubectl delete job k6-benchmark --ignore-not-found=true
+helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+  --set script=contention.js \
+  --set targetUrl=http://reservation-service:80/reservation \
+  --set vus=64
+kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+kubectl logs job/k6-benchmark | grep -E "http_reqs|http_req_duration|reservations_"
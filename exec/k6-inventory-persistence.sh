@@ -0,0 +1,30 @@
+#!/bin/sh
+
+# gRPC listCars throughput at high concurrency, blocking ORM against the
+# reactive MySQL client of the reactive build profile. The blocking reads
+# go through the Hibernate second-level and query caches, the reactive
+# ones always hit MySQL, so the blocking build is also measured with the
+# caches disabled to compare the two clients on uncached reads.
+eval $(minikube -p minikube docker-env)
+
+run() {
+  echo "------------ $1 ------------"
+  shift
+  (cd services/inventory-service && quarkus build "$@" \
+    && kubectl apply -f target/kubernetes/kubernetes.yml)
+  kubectl rollout restart deployment/inventory-service
+  kubectl rollout status deployment/inventory-service --timeout=300s
+  kubectl delete job k6-benchmark --ignore-not-found=true
+  helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+    --set script=inventory-transport.js \
+    --set targetUrl=http://inventory-service:80/graphql \
+    --set grpcAddress=inventory-service:9000 \
+    --set vus=200
+  kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+  kubectl logs job/k6-benchmark | grep -E "grpc_req_duration|iterations"
+}
+
+run "BLOCKING, CACHED" -Dquarkus.profile=prod
+run "BLOCKING, UNCACHED" -Dquarkus.profile=prod \
+  -Dquarkus.hibernate-orm.second-level-caching-enabled=false
+run "REACTIVE, UNCACHED" -Dquarkus.profile=prod,reactive
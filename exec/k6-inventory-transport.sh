@@ -0,0 +1,10 @@
+#!/bin/sh
+
+# GraphQL cars query against gRPC listCars, same fleet and load
+kubectl delete job k6-benchmark --ignore-not-found=true
+helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+  --set script=inventory-transport.js \
+  --set targetUrl=http://inventory-service:80/graphql \
+  --set grpcAddress=inventory-service:9000
+kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+kubectl logs job/k6-benchmark | grep -E "http_req_duration|grpc_req_duration"
@@ -0,0 +1,9 @@
+#!/bin/sh
+
+# GraphQL cars query sent as full text against its persisted hash
+kubectl delete job k6-benchmark --ignore-not-found=true
+helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+  --set script=persisted-query.js \
+  --set targetUrl=http://inventory-service:80/graphql
+kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+kubectl logs job/k6-benchmark | grep -A2 "http_req_duration"
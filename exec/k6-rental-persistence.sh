@@ -0,0 +1,22 @@
+#!/bin/sh
+
+# rental start and end throughput at high concurrency, blocking Mongo
+# Panache against the reactive build profile
+eval $(minikube -p minikube docker-env)
+kubectl exec -i postgresql-reservation-0 -- \
+  env PGPASSWORD=pass psql -U user -d reservation -v rows=100000 \
+  < services/reservation-service/benchmark/seed-reservations.sql
+for profile in prod prod,reactive; do
+  echo "------------ PROFILE $profile ------------"
+  (cd services/rental-service && quarkus build -Dquarkus.profile=$profile \
+    && kubectl apply -f target/kubernetes/kubernetes.yml)
+  kubectl rollout restart deployment/rental-service
+  kubectl rollout status deployment/rental-service --timeout=300s
+  kubectl delete job k6-benchmark --ignore-not-found=true
+  helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+    --set script=rental-lifecycle.js \
+    --set targetUrl=http://rental-service:80/rental \
+    --set vus=400
+  kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+  kubectl logs job/k6-benchmark | grep -E "http_req_duration|http_reqs|iterations"
+done
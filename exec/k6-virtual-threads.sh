@@ -0,0 +1,21 @@
+#!/bin/sh
+
+# rental start throughput as concurrency grows, worker pool against
+# virtual threads
+for enabled in false true; do
+  echo "------------ VIRTUAL THREADS $enabled ------------"
+  kubectl set env deployment/rental-service \
+    deployment/users-service deployment/billing-service \
+    QUARKUS_VIRTUAL_THREADS_ENABLED=$enabled
+  kubectl rollout status deployment/rental-service --timeout=300s
+  for vus in 50 200 800; do
+    echo "------------ $vus VUS ------------"
+    kubectl delete job k6-benchmark --ignore-not-found=true
+    helm upgrade --install k6-benchmark services/external-services/k6-benchmark \
+      --set script=rental-start.js \
+      --set targetUrl=http://rental-service:80/rental/start \
+      --set vus=$vus
+    kubectl wait --for=condition=complete job/k6-benchmark --timeout=600s
+    kubectl logs job/k6-benchmark | grep -E "http_req_duration|http_reqs"
+  done
+done
@@ -1,7 +1,7 @@
 package org.acme.billing;
 
 import io.quarkus.logging.Log;
-import io.smallrye.common.annotation.Blocking;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.acme.billing.data.InvoiceConfirmation;
 import org.acme.billing.model.Invoice;
@@ -19,7 +19,7 @@ public class PaymentRequester {
 
     @Incoming("invoices-requests")
     @Outgoing("invoices-confirmations")
-    @Blocking
+    @RunOnVirtualThread
     public InvoiceConfirmation requestPayment(Invoice invoice) {
         payment(invoice.reservation.userId, invoice.totalPrice, invoice);
 
@@ -31,7 +31,7 @@ public class PaymentRequester {
     }
 
     @Incoming("invoices-adjust")
-    @Blocking
+    @RunOnVirtualThread
     @Acknowledgment(Acknowledgment.Strategy.PRE_PROCESSING)
     public void requestAdjustment(InvoiceAdjust invoiceAdjust) {
         Log.info("Received invoice adjustment: " + invoiceAdjust);
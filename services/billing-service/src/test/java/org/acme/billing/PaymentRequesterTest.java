@@ -0,0 +1,83 @@
+package org.acme.billing;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit5.virtual.ShouldNotPin;
+import io.quarkus.test.junit5.virtual.VirtualThreadUnit;
+import io.quarkus.test.kafka.InjectKafkaCompanion;
+import io.quarkus.test.kafka.KafkaCompanionResource;
+import io.smallrye.reactive.messaging.kafka.companion.ConsumerTask;
+import io.smallrye.reactive.messaging.kafka.companion.KafkaCompanion;
+import io.smallrye.reactive.messaging.memory.InMemoryConnector;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.inject.Any;
+import jakarta.inject.Inject;
+import org.acme.billing.model.Invoice;
+import org.acme.billing.model.InvoiceAdjust;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(KafkaCompanionResource.class)
+@VirtualThreadUnit
+@ShouldNotPin
+public class PaymentRequesterTest {
+
+    private static final String USER_ID = "payment-user";
+    // the payments take up to 5 seconds
+    private static final Duration PAYMENT_TIMEOUT = Duration.ofSeconds(15);
+
+    @InjectKafkaCompanion
+    KafkaCompanion kafkaCompanion;
+
+    @Inject
+    @Any
+    InMemoryConnector connector;
+
+    @AfterEach
+    public void deleteInvoices() {
+        Invoice.delete("reservation.userId", USER_ID);
+        InvoiceAdjust.delete("userId", USER_ID);
+    }
+
+    @Test
+    public void testInvoicePaymentIsConfirmed() {
+        LocalDate startDay = LocalDate.now().plusDays(1);
+        connector.source("invoices").send(new JsonObject()
+            .put("price", 120.0)
+            .put("reservation", new JsonObject()
+                .put("id", 301L)
+                .put("userId", USER_ID)
+                .put("carId", 5L)
+                .put("startDay", startDay.toString())
+                .put("endDay", startDay.plusDays(2).toString())));
+
+        ConsumerTask<String, String> confirmations = kafkaCompanion
+            .consumeStrings().fromTopics("invoices-confirmations", 1)
+            .awaitCompletion(PAYMENT_TIMEOUT);
+        String confirmation = confirmations.getFirstRecord().value();
+        assertTrue(confirmation.contains("\"id\":301"), confirmation);
+        assertTrue(confirmation.contains("\"paid\":true"), confirmation);
+    }
+
+    @Test
+    public void testInvoiceAdjustmentIsPaid() {
+        kafkaCompanion.produceStrings().fromRecords(new ProducerRecord<>("invoices-adjust",
+                "{\"rentalId\":\"adjusted-rental\",\"userId\":\"" + USER_ID + "\"" +
+                    ",\"actualEndDate\":\"" + LocalDate.now() + "\",\"price\":25.99}"))
+            .awaitCompletion(Duration.ofSeconds(10));
+
+        await().atMost(PAYMENT_TIMEOUT).untilAsserted(() -> {
+            InvoiceAdjust invoiceAdjust = InvoiceAdjust.find("userId", USER_ID).firstResult();
+            assertTrue(invoiceAdjust != null && invoiceAdjust.paid,
+                () -> "not paid: " + invoiceAdjust);
+        });
+    }
+}
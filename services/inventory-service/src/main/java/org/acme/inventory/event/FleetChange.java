@@ -0,0 +1,69 @@
+package org.acme.inventory.event;
+
+import org.acme.inventory.model.Car;
+
+public class FleetChange {
+
+    public enum Type {
+        ADDED, UPDATED, REMOVED
+    }
+
+    private final Type type;
+    private final Long carId;
+    private final String licensePlateNumber;
+    private final String manufacturer;
+    private final String model;
+
+    public FleetChange(Type type, Long carId, String licensePlateNumber,
+                       String manufacturer, String model) {
+        this.type = type;
+        this.carId = carId;
+        this.licensePlateNumber = licensePlateNumber;
+        this.manufacturer = manufacturer;
+        this.model = model;
+    }
+
+    public static FleetChange added(Car car) {
+        return new FleetChange(Type.ADDED, car.getId(),
+            car.getLicensePlateNumber(), car.getManufacturer(), car.getModel());
+    }
+
+    public static FleetChange updated(Car car) {
+        return new FleetChange(Type.UPDATED, car.getId(),
+            car.getLicensePlateNumber(), car.getManufacturer(), car.getModel());
+    }
+
+    public static FleetChange removed(Car car) {
+        return new FleetChange(Type.REMOVED, car.getId(),
+            car.getLicensePlateNumber(), car.getManufacturer(), car.getModel());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getCarId() {
+        return carId;
+    }
+
+    public String getLicensePlateNumber() {
+        return licensePlateNumber;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public String toString() {
+        return "FleetChange{" +
+            "type=" + type +
+            ", carId=" + carId +
+            ", licensePlateNumber='" + licensePlateNumber + '\'' +
+            '}';
+    }
+}
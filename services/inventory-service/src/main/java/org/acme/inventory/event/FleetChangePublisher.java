@@ -0,0 +1,32 @@
+package org.acme.inventory.event;
+
+import io.quarkus.logging.Log;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+
+/**
+ * Publishes the fleet changes to the fleet-changes exchange once the
+ * transaction that made them has committed, so consumers never refetch a
+ * fleet that does not contain the change yet.
+ */
+@ApplicationScoped
+public class FleetChangePublisher {
+
+    @Inject
+    @Channel("fleet-changes")
+    Emitter<JsonObject> fleetChangeEmitter;
+
+    void onFleetChange(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                       FleetChange change) {
+        Log.info("Publishing " + change);
+        fleetChangeEmitter.send(new JsonObject()
+            .put("type", change.getType().name())
+            .put("carId", change.getCarId())
+            .put("licensePlateNumber", change.getLicensePlateNumber()));
+    }
+}
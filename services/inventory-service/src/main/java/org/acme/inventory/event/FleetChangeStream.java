@@ -0,0 +1,35 @@
+package org.acme.inventory.event;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+/**
+ * Hot stream of the committed fleet changes, each one numbered with the
+ * next version.
+ */
+@ApplicationScoped
+public class FleetChangeStream {
+
+    private static final int SUBSCRIBER_BUFFER_SIZE = 1024;
+
+    private final BroadcastProcessor<VersionedFleetChange> changes =
+        BroadcastProcessor.create();
+    private long version;
+
+    // versions are assigned and emitted under the same lock, so that
+    // subscribers receive them in order
+    synchronized void onFleetChange(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                                    FleetChange change) {
+        changes.onNext(new VersionedFleetChange(++version, change));
+    }
+
+    /**
+     * @return the fleet changes committed from now on
+     */
+    public Multi<VersionedFleetChange> watch() {
+        return changes.onOverflow().buffer(SUBSCRIBER_BUFFER_SIZE);
+    }
+}
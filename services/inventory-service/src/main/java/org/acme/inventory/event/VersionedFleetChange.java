@@ -0,0 +1,50 @@
+package org.acme.inventory.event;
+
+/**
+ * A fleet change numbered by {@link FleetChangeStream}. Versions increase
+ * by one per change, so a consumer that sees a gap has missed changes and
+ * has to reload the fleet. Versions restart from one when the service
+ * restarts.
+ */
+public class VersionedFleetChange {
+
+    private final long version;
+    private final FleetChange.Type type;
+    private final Long carId;
+    private final String licensePlateNumber;
+    private final String manufacturer;
+    private final String model;
+
+    public VersionedFleetChange(long version, FleetChange change) {
+        this.version = version;
+        this.type = change.getType();
+        this.carId = change.getCarId();
+        this.licensePlateNumber = change.getLicensePlateNumber();
+        this.manufacturer = change.getManufacturer();
+        this.model = change.getModel();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public FleetChange.Type getType() {
+        return type;
+    }
+
+    public Long getCarId() {
+        return carId;
+    }
+
+    public String getLicensePlateNumber() {
+        return licensePlateNumber;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+}
@@ -6,15 +6,29 @@ import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.smallrye.common.annotation.Blocking;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.acme.inventory.event.FleetChange;
+import org.acme.inventory.event.FleetChangeStream;
 import org.acme.inventory.model.Car;
+import org.acme.inventory.model.CarChange;
 import org.acme.inventory.model.CarResponse;
+import org.acme.inventory.model.CarsResponse;
+import org.acme.inventory.model.GetCarsByIdsRequest;
 import org.acme.inventory.model.InsertCarRequest;
 import org.acme.inventory.model.InventoryService;
+import org.acme.inventory.model.ListCarsRequest;
 import org.acme.inventory.model.RemoveCarRequest;
+import org.acme.inventory.model.WatchCarsRequest;
+import org.acme.inventory.repository.CarReadRepository;
 import org.acme.inventory.repository.CarRepository;
+import org.acme.inventory.service.BulkFleetOperations;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 @GrpcService
@@ -23,27 +37,49 @@ public class GrpcInventoryService implements InventoryService {
     @Inject
     CarRepository carRepository;
 
+    @Inject
+    CarReadRepository carReadRepository;
+
+    @Inject
+    Event<FleetChange> fleetChanges;
+
+    @Inject
+    FleetChangeStream fleetChangeStream;
+
+    @Inject
+    BulkFleetOperations bulkFleetOperations;
+
+    @ConfigProperty(name = "grpc-add.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "grpc-add.chunk-window", defaultValue = "1s")
+    Duration chunkWindow;
+
+    /**
+     * Groups the incoming cars into chunks of at most chunkSize cars, or
+     * the cars received within chunkWindow if fewer, and persists each
+     * chunk in a single transaction. The responses of a chunk are sent
+     * once it has committed.
+     */
     @Override
     @Blocking
     public Multi<CarResponse> add(Multi<InsertCarRequest> requests) {
         return requests
-            .map(request -> {
-                Car car = new Car();
-                car.setLicensePlateNumber(request.getLicensePlateNumber());
-                car.setManufacturer(request.getManufacturer());
-                car.setModel(request.getModel());
-                return car;
-            }).onItem().invoke(car -> {
-                QuarkusTransaction.requiringNew().run( () -> {
-                    carRepository.persist(car);
-                    Log.info("Persisting " + car);
-                });
-            }).map(car -> CarResponse.newBuilder()
-                .setLicensePlateNumber(car.getLicensePlateNumber())
-                .setManufacturer(car.getManufacturer())
-                .setModel(car.getModel())
-                .setId(car.getId())
-                .build());
+            .map(GrpcInventoryService::toCar)
+            .group().intoLists().of(chunkSize, chunkWindow)
+            // the time window closes the chunks on a timer thread
+            .emitOn(Infrastructure.getDefaultWorkerPool())
+            .onItem().invoke(this::persistChunk)
+            .onItem().<Car>disjoint()
+            .map(GrpcInventoryService::toResponse);
+    }
+
+    private void persistChunk(List<Car> cars) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            carRepository.persist(cars);
+            cars.forEach(car -> fleetChanges.fire(FleetChange.added(car)));
+        });
+        Log.info("Persisted a chunk of " + cars.size() + " cars");
     }
 
     @Override
@@ -57,13 +93,112 @@ public class GrpcInventoryService implements InventoryService {
         if (optionalCar.isPresent()) {
             Car removedCar = optionalCar.get();
             carRepository.delete(removedCar);
-            return Uni.createFrom().item(CarResponse.newBuilder()
-                .setLicensePlateNumber(removedCar.getLicensePlateNumber())
-                .setManufacturer(removedCar.getManufacturer())
-                .setModel(removedCar.getModel())
-                .setId(removedCar.getId())
-                .build());
+            fleetChanges.fire(FleetChange.removed(removedCar));
+            return Uni.createFrom().item(toResponse(removedCar));
         }
         return Uni.createFrom().nullItem();
     }
+
+    /**
+     * Removes the cars of the streamed license plates, one set-based
+     * transaction per chunk.
+     * @return the removed cars
+     */
+    @Override
+    @Blocking
+    public Uni<CarsResponse> removeMany(Multi<RemoveCarRequest> requests) {
+        return requests
+            .map(RemoveCarRequest::getLicensePlateNumber)
+            .group().intoLists().of(chunkSize)
+            .map(bulkFleetOperations::removeMany)
+            .onItem().<Car>disjoint()
+            .collect().asList()
+            .map(GrpcInventoryService::toCarsResponse);
+    }
+
+    /**
+     * Adds or updates the streamed cars by license plate, one set-based
+     * transaction per chunk.
+     * @return the added and updated cars
+     */
+    @Override
+    @Blocking
+    public Uni<CarsResponse> upsertMany(Multi<InsertCarRequest> requests) {
+        return requests
+            .map(GrpcInventoryService::toCar)
+            .group().intoLists().of(chunkSize)
+            .map(bulkFleetOperations::upsertMany)
+            .onItem().<Car>disjoint()
+            .collect().asList()
+            .map(GrpcInventoryService::toCarsResponse);
+    }
+
+    /**
+     * The read RPCs run on the event loop and leave any blocking to the
+     * {@link CarReadRepository} of the build profile.
+     */
+    @Override
+    public Uni<CarsResponse> listCars(ListCarsRequest request) {
+        return carReadRepository.listFleet()
+            .map(GrpcInventoryService::toCarsResponse);
+    }
+
+    /**
+     * Same as {@link #listCars} but sends one message per car, so the
+     * client can start consuming before the whole fleet is serialized.
+     */
+    @Override
+    public Multi<CarResponse> streamCars(ListCarsRequest request) {
+        return carReadRepository.listFleet()
+            .onItem().transformToMulti(cars -> Multi.createFrom().iterable(cars))
+            .map(GrpcInventoryService::toResponse);
+    }
+
+    @Override
+    public Uni<CarsResponse> getCarsByIds(GetCarsByIdsRequest request) {
+        if (request.getIdsCount() == 0) {
+            return Uni.createFrom().item(CarsResponse.getDefaultInstance());
+        }
+        return carReadRepository.findByIds(request.getIdsList())
+            .map(GrpcInventoryService::toCarsResponse);
+    }
+
+    @Override
+    public Multi<CarChange> watchCars(WatchCarsRequest request) {
+        return fleetChangeStream.watch()
+            .map(change -> CarChange.newBuilder()
+                .setVersion(change.getVersion())
+                .setType(change.getType().name())
+                .setCar(CarResponse.newBuilder()
+                    .setLicensePlateNumber(change.getLicensePlateNumber())
+                    .setManufacturer(change.getManufacturer())
+                    .setModel(change.getModel())
+                    .setId(change.getCarId()))
+                .build());
+    }
+
+    private static Car toCar(InsertCarRequest request) {
+        Car car = new Car();
+        car.setLicensePlateNumber(request.getLicensePlateNumber());
+        car.setManufacturer(request.getManufacturer());
+        car.setModel(request.getModel());
+        return car;
+    }
+
+    private static CarsResponse toCarsResponse(List<Car> cars) {
+        CarsResponse.Builder builder = CarsResponse.newBuilder();
+        for (Car car : cars) {
+            builder.addCars(toResponse(car));
+        }
+        return builder.build();
+    }
+
+    private static CarResponse toResponse(Car car) {
+        return CarResponse.newBuilder()
+            .setLicensePlateNumber(car.getLicensePlateNumber())
+            .setManufacturer(car.getManufacturer())
+            .setModel(car.getModel())
+            .setId(car.getId())
+            .build();
+    }
 }
@@ -2,7 +2,6 @@ package org.acme.inventory.health;
 
 import io.smallrye.health.api.Wellness;
 import jakarta.inject.Inject;
-import org.acme.inventory.repository.CarRepository;
 import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
 
@@ -10,11 +9,11 @@ import org.eclipse.microprofile.health.HealthCheckResponse;
 public class CarCountCheck implements HealthCheck {
 
     @Inject
-    CarRepository carRepository;
+    FleetCounter fleetCounter;
 
     @Override
     public HealthCheckResponse call() {
-        long carsCount = carRepository.findAll().count();
+        long carsCount = fleetCounter.get();
         boolean wellnessStatus = carsCount > 0;
         return HealthCheckResponse.builder()
             .name("car-count-check")
@@ -0,0 +1,57 @@
+package org.acme.inventory.health;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.inventory.event.FleetChange;
+import org.acme.inventory.repository.CarRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of cars in the fleet, kept up to date by the committed fleet
+ * changes so that reading it never touches the database.
+ * The counter is set with a COUNT query at startup and then periodically,
+ * to correct any drift caused by changes made outside this service.
+ */
+@ApplicationScoped
+public class FleetCounter {
+
+    private final AtomicLong count = new AtomicLong();
+
+    @Inject
+    CarRepository carRepository;
+
+    void onStart(@Observes StartupEvent event) {
+        reconcile();
+    }
+
+    void onFleetChange(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                       FleetChange change) {
+        if (change.getType() == FleetChange.Type.ADDED) {
+            count.incrementAndGet();
+        } else if (change.getType() == FleetChange.Type.REMOVED) {
+            count.decrementAndGet();
+        }
+    }
+
+    @Scheduled(every = "${fleet-counter.reconcile-interval:60s}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void reconcile() {
+        long actual = carRepository.count();
+        long previous = count.getAndSet(actual);
+        if (previous != actual) {
+            Log.info("Fleet counter reconciled from " + previous + " to " + actual);
+        }
+    }
+
+    public long get() {
+        return count.get();
+    }
+}
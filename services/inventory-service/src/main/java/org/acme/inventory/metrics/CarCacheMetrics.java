@@ -0,0 +1,59 @@
+package org.acme.inventory.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.inventory.model.Car;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Hit ratio and size of the Car second-level cache and of the query
+ * cache. The caches do not report their size in bytes, so the footprint
+ * is exposed as the number of cached entries.
+ */
+@ApplicationScoped
+public class CarCacheMetrics {
+
+    private static final String QUERY_REGION = "default-query-results-region";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    void onStart(@Observes StartupEvent event) {
+        Statistics statistics = sessionFactory.getStatistics();
+        CacheRegionStatistics cars = statistics
+            .getDomainDataRegionStatistics(Car.class.getName());
+        CacheRegionStatistics queries = statistics
+            .getQueryRegionStatistics(QUERY_REGION);
+
+        Gauge.builder("inventory.car.cache.hit.ratio", cars,
+                region -> ratio(region.getHitCount(), region.getMissCount()))
+            .description("Hit ratio of the Car second-level cache")
+            .register(registry);
+        Gauge.builder("inventory.car.cache.entries", cars,
+                CacheRegionStatistics::getElementCountInMemory)
+            .description("Cars held by the second-level cache")
+            .register(registry);
+        Gauge.builder("inventory.car.query.cache.hit.ratio", statistics,
+                stats -> ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()))
+            .description("Hit ratio of the car query cache")
+            .register(registry);
+        Gauge.builder("inventory.car.query.cache.entries", queries,
+                CacheRegionStatistics::getElementCountInMemory)
+            .description("Query results held by the query cache")
+            .register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -1,17 +1,30 @@
 package org.acme.inventory.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Table(uniqueConstraints = @UniqueConstraint(name = "car_license_plate_number_uk",
+    columnNames = "licensePlateNumber"))
 public class Car {
 
+    /**
+     * Generated from a pooled sequence rather than an identity column,
+     * which would disable the JDBC batching of the inserts. The ids below
+     * 1000 are left to import.sql.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", initialValue = 1000, allocationSize = 100)
     private Long id;
     private String licensePlateNumber;
     private String manufacturer;
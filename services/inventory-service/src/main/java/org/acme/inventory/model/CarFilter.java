@@ -0,0 +1,40 @@
+package org.acme.inventory.model;
+
+import org.eclipse.microprofile.graphql.Input;
+
+import java.util.List;
+
+/**
+ * Optional criteria of the cars query, a null criterion matches every car.
+ */
+@Input("CarFilter")
+public class CarFilter {
+
+    private String manufacturer;
+    private String model;
+    private List<Long> ids;
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public void setManufacturer(String manufacturer) {
+        this.manufacturer = manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,37 @@
+package org.acme.inventory.repository;
+
+import io.quarkus.arc.profile.UnlessBuildProfile;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.inventory.model.Car;
+
+import java.util.List;
+
+/**
+ * Runs the {@link CarRepository} queries on a worker thread, where they
+ * also use the second-level and query caches. The reads run without a
+ * transaction, like the former blocking RPCs did.
+ */
+@ApplicationScoped
+@UnlessBuildProfile("reactive")
+public class BlockingCarReadRepository implements CarReadRepository {
+
+    @Inject
+    CarRepository carRepository;
+
+    @Override
+    public Uni<List<Car>> listFleet() {
+        return Uni.createFrom()
+            .item(() -> carRepository.listFleet())
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    @Override
+    public Uni<List<Car>> findByIds(List<Long> ids) {
+        return Uni.createFrom()
+            .item(() -> carRepository.findByIds(ids))
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+}
@@ -0,0 +1,19 @@
+package org.acme.inventory.repository;
+
+import io.smallrye.mutiny.Uni;
+import org.acme.inventory.model.Car;
+
+import java.util.List;
+
+/**
+ * Non-blocking reads of the fleet, for the callers that must not hold a
+ * worker thread while the database answers. Built as
+ * {@link ReactiveCarReadRepository} with the reactive build profile and as
+ * {@link BlockingCarReadRepository} otherwise.
+ */
+public interface CarReadRepository {
+
+    Uni<List<Car>> listFleet();
+
+    Uni<List<Car>> findByIds(List<Long> ids);
+}
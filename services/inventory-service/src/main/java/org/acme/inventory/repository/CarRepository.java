@@ -2,17 +2,154 @@ package org.acme.inventory.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import org.acme.inventory.model.Car;
+import org.acme.inventory.model.CarFilter;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 
+/**
+ * The lookups below go through the Hibernate query cache, which Hibernate
+ * invalidates on every write to the Car table, and the cars they return
+ * come from the second-level cache.
+ */
 @ApplicationScoped
 public class CarRepository implements PanacheRepository<Car> {
 
+    private static final Set<String> PROJECTABLE_FIELDS =
+        Set.of("licensePlateNumber", "manufacturer", "model");
+
     public Optional<Car> findByLicensePlateNumberOptional(
         String licensePlateNumber) {
         return find("licensePlateNumber", licensePlateNumber)
+            .withHint(HibernateHints.HINT_CACHEABLE, true)
             .firstResultOptional();
     }
+
+    /**
+     * Find the cars with the given license plates, locking them, and the
+     * gaps of the missing ones, until the end of the transaction.
+     */
+    public List<Car> lockByLicensePlateNumbers(Collection<String> licensePlateNumbers) {
+        return find("licensePlateNumber in ?1", licensePlateNumbers)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .list();
+    }
+
+    /**
+     * Delete the cars with the given license plates with a single
+     * statement.
+     */
+    public long deleteByLicensePlateNumbers(Collection<String> licensePlateNumbers) {
+        return delete("licensePlateNumber in ?1", licensePlateNumbers);
+    }
+
+    /**
+     * Also called from worker threads with no request, which need their
+     * own request context for the session.
+     */
+    @ActivateRequestContext
+    public List<Car> listFleet() {
+        return findAll()
+            .withHint(HibernateHints.HINT_CACHEABLE, true)
+            .list();
+    }
+
+    /**
+     * Find the cars matching the filter ordered by id, fetching only the
+     * given fields. The other fields of the returned cars are null.
+     * @param fields the fields to fetch among id, licensePlateNumber,
+     * manufacturer and model, the id is always fetched
+     * @param after the id of the last car of the previous page, or null
+     * @param offset the matching cars to skip, or null
+     * @param limit the maximum number of cars to return, or null for all
+     */
+    public List<Car> findCars(Set<String> fields, CarFilter filter,
+                              Long after, Integer offset, Integer limit) {
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        for (String field : fields) {
+            if (PROJECTABLE_FIELDS.contains(field)) {
+                columns.add(field);
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder("select ")
+            .append(columns.stream()
+                .map(column -> "c." + column + " as " + column)
+                .collect(Collectors.joining(", ")))
+            .append(" from Car c where 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (filter != null && filter.getManufacturer() != null) {
+            jpql.append(" and c.manufacturer = :manufacturer");
+            parameters.put("manufacturer", filter.getManufacturer());
+        }
+        if (filter != null && filter.getModel() != null) {
+            jpql.append(" and c.model = :model");
+            parameters.put("model", filter.getModel());
+        }
+        if (filter != null && filter.getIds() != null) {
+            jpql.append(" and c.id in :ids");
+            parameters.put("ids", filter.getIds());
+        }
+        if (after != null) {
+            jpql.append(" and c.id > :after");
+            parameters.put("after", after);
+        }
+        jpql.append(" order by c.id");
+
+        TypedQuery<Tuple> query = getEntityManager()
+            .createQuery(jpql.toString(), Tuple.class)
+            .setHint(HibernateHints.HINT_CACHEABLE, true);
+        parameters.forEach(query::setParameter);
+        if (offset != null) {
+            query.setFirstResult(offset);
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList().stream()
+            .map(tuple -> toCar(tuple, columns))
+            .toList();
+    }
+
+    private static Car toCar(Tuple tuple, Set<String> columns) {
+        Car car = new Car();
+        car.setId(tuple.get("id", Long.class));
+        if (columns.contains("licensePlateNumber")) {
+            car.setLicensePlateNumber(tuple.get("licensePlateNumber", String.class));
+        }
+        if (columns.contains("manufacturer")) {
+            car.setManufacturer(tuple.get("manufacturer", String.class));
+        }
+        if (columns.contains("model")) {
+            car.setModel(tuple.get("model", String.class));
+        }
+        return car;
+    }
+
+    /**
+     * Load the cars with the given ids, reading the second-level cache
+     * first and fetching only the missing ones in a single query.
+     */
+    @ActivateRequestContext
+    public List<Car> findByIds(List<Long> ids) {
+        return getSession().byMultipleIds(Car.class)
+            .multiLoad(ids).stream()
+            .filter(Objects::nonNull)
+            .toList();
+    }
 }
@@ -0,0 +1,62 @@
+package org.acme.inventory.repository;
+
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.mysqlclient.MySQLPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.inventory.model.Car;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the Car table with the Vert.x MySQL client, on the event loop.
+ * Writes keep going through Hibernate ORM, as Hibernate Reactive cannot
+ * share the application with it, so these reads bypass the Hibernate
+ * caches.
+ */
+@ApplicationScoped
+@IfBuildProfile("reactive")
+public class ReactiveCarReadRepository implements CarReadRepository {
+
+    private static final String SELECT_CARS =
+        "SELECT id, licensePlateNumber, manufacturer, model FROM Car";
+
+    @Inject
+    MySQLPool client;
+
+    @Override
+    public Uni<List<Car>> listFleet() {
+        return client.query(SELECT_CARS + " ORDER BY id").execute()
+            .map(ReactiveCarReadRepository::toCars);
+    }
+
+    @Override
+    public Uni<List<Car>> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return client.preparedQuery(SELECT_CARS + " WHERE id IN (" + placeholders + ")")
+            .execute(Tuple.from(ids))
+            .map(ReactiveCarReadRepository::toCars);
+    }
+
+    private static List<Car> toCars(RowSet<Row> rows) {
+        List<Car> cars = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Car car = new Car();
+            car.setId(row.getLong("id"));
+            car.setLicensePlateNumber(row.getString("licensePlateNumber"));
+            car.setManufacturer(row.getString("manufacturer"));
+            car.setModel(row.getString("model"));
+            cars.add(car);
+        }
+        return cars;
+    }
+}
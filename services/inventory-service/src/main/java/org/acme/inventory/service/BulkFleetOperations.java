@@ -0,0 +1,95 @@
+package org.acme.inventory.service;
+
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.inventory.event.FleetChange;
+import org.acme.inventory.model.Car;
+import org.acme.inventory.repository.CarRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Set-based removal and upsert of many cars at once, shared by the GraphQL
+ * and gRPC APIs. Each call is a single transaction that locks the
+ * affected license plates with one query.
+ */
+@ApplicationScoped
+public class BulkFleetOperations {
+
+    @Inject
+    CarRepository carRepository;
+
+    @Inject
+    Event<FleetChange> fleetChanges;
+
+    /**
+     * @return the removed cars, the license plates not in the fleet are
+     * ignored
+     */
+    @Transactional
+    public List<Car> removeMany(Collection<String> licensePlateNumbers) {
+        if (licensePlateNumbers.isEmpty()) {
+            return List.of();
+        }
+        List<Car> removedCars = carRepository
+            .lockByLicensePlateNumbers(licensePlateNumbers);
+        if (!removedCars.isEmpty()) {
+            carRepository.deleteByLicensePlateNumbers(licensePlateNumbers);
+            removedCars.forEach(car -> fleetChanges.fire(FleetChange.removed(car)));
+        }
+        Log.info("Removed " + removedCars.size() + " cars");
+        return removedCars;
+    }
+
+    /**
+     * Add the cars whose license plate is not in the fleet yet and update
+     * the manufacturer and model of the others. When the same license
+     * plate appears more than once the last car wins.
+     * @return the added and updated cars
+     */
+    @Transactional
+    public List<Car> upsertMany(List<Car> cars) {
+        Map<String, Car> carsByLicensePlate = new LinkedHashMap<>();
+        for (Car car : cars) {
+            carsByLicensePlate.put(car.getLicensePlateNumber(), car);
+        }
+        if (carsByLicensePlate.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Car> existingCars = new HashMap<>();
+        for (Car car : carRepository.lockByLicensePlateNumbers(carsByLicensePlate.keySet())) {
+            existingCars.put(car.getLicensePlateNumber(), car);
+        }
+        List<Car> upsertedCars = new ArrayList<>();
+        for (Car car : carsByLicensePlate.values()) {
+            Car existing = existingCars.get(car.getLicensePlateNumber());
+            if (existing == null) {
+                car.setId(null);
+                carRepository.persist(car);
+                fleetChanges.fire(FleetChange.added(car));
+                upsertedCars.add(car);
+            } else {
+                if (!Objects.equals(existing.getManufacturer(), car.getManufacturer())
+                    || !Objects.equals(existing.getModel(), car.getModel())) {
+                    // flushed as a batched update by dirty checking
+                    existing.setManufacturer(car.getManufacturer());
+                    existing.setModel(car.getModel());
+                    fleetChanges.fire(FleetChange.updated(existing));
+                }
+                upsertedCars.add(existing);
+            }
+        }
+        Log.info("Upserted " + upsertedCars.size() + " cars");
+        return upsertedCars;
+    }
+}
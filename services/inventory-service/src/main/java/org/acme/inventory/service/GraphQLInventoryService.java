@@ -2,26 +2,84 @@ package org.acme.inventory.service;
 
 import io.micrometer.core.annotation.Counted;
 import io.quarkus.logging.Log;
+import io.smallrye.graphql.api.Context;
+import io.smallrye.graphql.api.Subscription;
+import io.smallrye.mutiny.Multi;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
 import jakarta.transaction.Transactional;
+import org.acme.inventory.event.FleetChange;
+import org.acme.inventory.event.FleetChangeStream;
+import org.acme.inventory.event.VersionedFleetChange;
 import org.acme.inventory.model.Car;
+import org.acme.inventory.model.CarFilter;
 import org.acme.inventory.repository.CarRepository;
 import org.eclipse.microprofile.graphql.GraphQLApi;
 import org.eclipse.microprofile.graphql.Mutation;
 import org.eclipse.microprofile.graphql.Query;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @GraphQLApi
 public class GraphQLInventoryService {
 
+    private static final Set<String> ALL_FIELDS =
+        Set.of("id", "licensePlateNumber", "manufacturer", "model");
+
     @Inject
     CarRepository carRepository;
 
+    @Inject
+    Event<FleetChange> fleetChanges;
+
+    @Inject
+    Context context;
+
+    @Inject
+    FleetChangeStream fleetChangeStream;
+
+    @Inject
+    BulkFleetOperations bulkFleetOperations;
+
+    /**
+     * Cars matching the optional filter, ordered by id. Pages can be
+     * requested by offset or, cheaper on large fleets, by the id of the
+     * last car of the previous page. Only the selected fields are read
+     * from the database.
+     */
     @Query
-    public List<Car> cars() {
-        return carRepository.listAll();
+    public List<Car> cars(CarFilter filter, Long after, Integer offset,
+                          Integer limit) {
+        Set<String> fields = selectedFields();
+        if (filter == null && after == null && offset == null && limit == null
+            && fields.containsAll(ALL_FIELDS)) {
+            return carRepository.listFleet();
+        }
+        return carRepository.findCars(fields, filter, after, offset, limit);
+    }
+
+    private Set<String> selectedFields() {
+        Set<String> fields = new HashSet<>();
+        for (JsonValue field : context.getSelectedFields()) {
+            if (field instanceof JsonString name) {
+                fields.add(name.getString());
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Cars added to and removed from the fleet from now on, see
+     * {@link VersionedFleetChange} for the meaning of the versions.
+     */
+    @Subscription
+    public Multi<VersionedFleetChange> carChanges() {
+        return fleetChangeStream.watch();
     }
 
     @Counted(description = "Number of car registrations")
@@ -30,6 +88,7 @@ public class GraphQLInventoryService {
     public Car register(Car car) {
         carRepository.persist(car);
         Log.info("Persisting " + car);
+        fleetChanges.fire(FleetChange.added(car));
         return car;
     }
 
@@ -41,10 +100,27 @@ public class GraphQLInventoryService {
                 licensePlateNumber);
         if(toBeRemoved.isPresent()) {
             carRepository.delete(toBeRemoved.get());
+            fleetChanges.fire(FleetChange.removed(toBeRemoved.get()));
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * @return the removed cars
+     */
+    @Mutation
+    public List<Car> removeMany(List<String> licensePlateNumbers) {
+        return bulkFleetOperations.removeMany(licensePlateNumbers);
+    }
+
+    /**
+     * @return the added and updated cars
+     */
+    @Mutation
+    public List<Car> upsertMany(List<Car> cars) {
+        return bulkFleetOperations.upsertMany(cars);
+    }
+
 }
@@ -1,10 +1,10 @@
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('ABC123', 'Mazda', '6');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('XYZ987', 'Ford', 'Mustang');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('DEF456', 'Fiat', 'Panda');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('GHI789', 'Lancia', 'Y');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('JKL012', 'Renault', 'Clio');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('MNO345', 'Audi', 'A3');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('PQR678', 'BMW', 'Serie 1');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('STU901', 'Mercedes', 'Classe A');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('VWX234', 'Volkswagen', 'Golf');
-INSERT INTO Car (licensePlateNumber, manufacturer, model) VALUES ('YZA567', 'Peugeot', '208');
\ No newline at end of file
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (1, 'ABC123', 'Mazda', '6');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (2, 'XYZ987', 'Ford', 'Mustang');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (3, 'DEF456', 'Fiat', 'Panda');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (4, 'GHI789', 'Lancia', 'Y');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (5, 'JKL012', 'Renault', 'Clio');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (6, 'MNO345', 'Audi', 'A3');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (7, 'PQR678', 'BMW', 'Serie 1');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (8, 'STU901', 'Mercedes', 'Classe A');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (9, 'VWX234', 'Volkswagen', 'Golf');
+INSERT INTO Car (id, licensePlateNumber, manufacturer, model) VALUES (10, 'YZA567', 'Peugeot', '208');
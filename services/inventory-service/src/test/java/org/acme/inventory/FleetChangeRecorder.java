@@ -0,0 +1,30 @@
+package org.acme.inventory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import org.acme.inventory.event.FleetChange;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the committed fleet changes, as seen by the publisher.
+ */
+@ApplicationScoped
+public class FleetChangeRecorder {
+
+    private final List<FleetChange> changes = new CopyOnWriteArrayList<>();
+
+    void onFleetChange(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                       FleetChange change) {
+        changes.add(change);
+    }
+
+    public List<FleetChange.Type> typesOf(String licensePlateNumber) {
+        return changes.stream()
+            .filter(change -> licensePlateNumber.equals(change.getLicensePlateNumber()))
+            .map(FleetChange::getType)
+            .toList();
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.inventory;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import jakarta.inject.Inject;
+import org.acme.inventory.event.FleetChange;
+import org.acme.inventory.health.FleetCounter;
+import org.acme.inventory.model.Car;
+import org.acme.inventory.repository.CarRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@QuarkusTest
+public class GraphQLInventoryServiceTest {
+
+    @Inject
+    CarRepository carRepository;
+
+    @Inject
+    FleetCounter fleetCounter;
+
+    @Inject
+    FleetChangeRecorder fleetChangeRecorder;
+
+    @Test
+    public void testCarsFilterAndPagination() {
+        graphQL("{ cars(filter: {manufacturer: \"Lancia\"}) { licensePlateNumber } }")
+            .body("data.cars.licensePlateNumber", contains("GHI789"));
+
+        // keyset pagination within the filtered ids
+        graphQL("{ cars(filter: {ids: [1, 2, 3, 4]}, after: 1, limit: 2) { id model } }")
+            .body("data.cars.id.collect { it.toString() }", contains("2", "3"),
+                "data.cars.model", contains("Mustang", "Panda"));
+    }
+
+    @Test
+    @TestTransaction
+    public void testFindCarsFetchesOnlyTheSelectedFields() {
+        List<Car> cars = carRepository.findCars(Set.of("model"), null, 4L, null, 1);
+
+        Assertions.assertEquals(1, cars.size());
+        Assertions.assertEquals(5L, cars.get(0).getId());
+        Assertions.assertEquals("Clio", cars.get(0).getModel());
+        Assertions.assertNull(cars.get(0).getLicensePlateNumber());
+        Assertions.assertNull(cars.get(0).getManufacturer());
+    }
+
+    @Test
+    public void testUpsertManyAndRemoveMany() {
+        long fleetSize = fleetCounter.get();
+
+        // the last car of a license plate wins
+        graphQL("mutation { upsertMany(cars: [" +
+                "{licensePlateNumber: \"GQL-1\", manufacturer: \"Fiat\", model: \"500\"}, " +
+                "{licensePlateNumber: \"GQL-1\", manufacturer: \"Fiat\", model: \"600\"}, " +
+                "{licensePlateNumber: \"GQL-2\", manufacturer: \"Fiat\", model: \"Tipo\"}]) " +
+                "{ id licensePlateNumber model } }")
+            .body("data.upsertMany", hasSize(2),
+                "data.upsertMany.licensePlateNumber", contains("GQL-1", "GQL-2"),
+                "data.upsertMany.model", contains("600", "Tipo"));
+        Assertions.assertEquals(fleetSize + 2, fleetCounter.get());
+
+        // an existing license plate is updated in place, not duplicated
+        graphQL("mutation { upsertMany(cars: [" +
+                "{licensePlateNumber: \"GQL-2\", manufacturer: \"Fiat\", model: \"Punto\"}]) " +
+                "{ licensePlateNumber model } }")
+            .body("data.upsertMany.model", contains("Punto"));
+        Assertions.assertEquals(fleetSize + 2, fleetCounter.get());
+        graphQL("{ cars(filter: {manufacturer: \"Fiat\"}) { licensePlateNumber model } }")
+            .body("data.cars.findAll { it.licensePlateNumber == 'GQL-2' }.model", contains("Punto"));
+
+        graphQL("mutation { removeMany(licensePlateNumbers: [\"GQL-1\", \"GQL-2\", \"MISSING\"]) " +
+                "{ licensePlateNumber } }")
+            .body("data.removeMany", hasSize(2));
+        Assertions.assertEquals(fleetSize, fleetCounter.get());
+
+        Assertions.assertEquals(List.of(FleetChange.Type.ADDED, FleetChange.Type.REMOVED),
+            fleetChangeRecorder.typesOf("GQL-1"));
+        Assertions.assertEquals(List.of(FleetChange.Type.ADDED, FleetChange.Type.UPDATED,
+                FleetChange.Type.REMOVED),
+            fleetChangeRecorder.typesOf("GQL-2"));
+    }
+
+    @Test
+    public void testRegisterRejectsADuplicateLicensePlate() {
+        long fleetSize = fleetCounter.get();
+
+        graphQL("mutation { register(car: {licensePlateNumber: \"ABC123\", " +
+                "manufacturer: \"Mazda\", model: \"3\"}) { id } }")
+            .body("errors", notNullValue(),
+                "data.register", nullValue());
+
+        Assertions.assertEquals(fleetSize, fleetCounter.get());
+        Assertions.assertTrue(fleetChangeRecorder.typesOf("ABC123").isEmpty());
+    }
+
+    private static ValidatableResponse graphQL(String query) {
+        return given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("query", query))
+            .when().post("/graphql")
+            .then().statusCode(200);
+    }
+}
@@ -0,0 +1,74 @@
+package org.acme.inventory;
+
+import io.quarkus.grpc.GrpcClient;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import org.acme.inventory.event.FleetChange;
+import org.acme.inventory.health.FleetCounter;
+import org.acme.inventory.model.CarResponse;
+import org.acme.inventory.model.CarsResponse;
+import org.acme.inventory.model.InsertCarRequest;
+import org.acme.inventory.model.InventoryService;
+import org.acme.inventory.model.RemoveCarRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@QuarkusTest
+public class GrpcInventoryServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @GrpcClient("inventory")
+    InventoryService inventory;
+
+    @Inject
+    FleetCounter fleetCounter;
+
+    @Inject
+    FleetChangeRecorder fleetChangeRecorder;
+
+    @Test
+    public void testChunkedAddAndRemoveMany() {
+        long fleetSize = fleetCounter.get();
+        List<String> licensePlates = IntStream.rangeClosed(1, 7)
+            .mapToObj(i -> "GRPC-" + i)
+            .toList();
+
+        // 7 cars with a chunk size of 3 are persisted in 3 transactions
+        List<CarResponse> added = inventory.add(Multi.createFrom().iterable(licensePlates)
+                .map(licensePlate -> InsertCarRequest.newBuilder()
+                    .setLicensePlateNumber(licensePlate)
+                    .setManufacturer("Fiat")
+                    .setModel("Panda")
+                    .build()))
+            .collect().asList()
+            .await().atMost(TIMEOUT);
+
+        Assertions.assertEquals(licensePlates,
+            added.stream().map(CarResponse::getLicensePlateNumber).toList());
+        // the ids come from the sequence, after the ones of import.sql
+        Assertions.assertEquals(7, added.stream().mapToLong(CarResponse::getId)
+            .filter(id -> id >= 1000).distinct().count());
+        Assertions.assertEquals(fleetSize + 7, fleetCounter.get());
+
+        CarsResponse removed = inventory.removeMany(Multi.createFrom()
+                .items("GRPC-1", "GRPC-2", "MISSING")
+                .map(licensePlate -> RemoveCarRequest.newBuilder()
+                    .setLicensePlateNumber(licensePlate)
+                    .build()))
+            .await().atMost(TIMEOUT);
+
+        Assertions.assertEquals(List.of("GRPC-1", "GRPC-2"), removed.getCarsList().stream()
+            .map(CarResponse::getLicensePlateNumber).sorted().toList());
+        Assertions.assertEquals(fleetSize + 5, fleetCounter.get());
+        Assertions.assertEquals(List.of(FleetChange.Type.ADDED, FleetChange.Type.REMOVED),
+            fleetChangeRecorder.typesOf("GRPC-1"));
+        Assertions.assertEquals(List.of(FleetChange.Type.ADDED),
+            fleetChangeRecorder.typesOf("GRPC-3"));
+    }
+}
@@ -0,0 +1,105 @@
+package org.acme.rental;
+
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import org.acme.rental.billing.InvoiceAdjust;
+import org.acme.rental.entity.ActiveRental;
+import org.acme.rental.entity.ReactiveRental;
+import org.acme.rental.reservation.ReservationClient;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.RestQuery;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking twin of {@link RentalResource}, built instead of it with
+ * the reactive build profile, e.g.
+ * {@code quarkus build -Dquarkus.profile=prod,reactive}.
+ */
+@Path("/rental")
+@IfBuildProfile("reactive")
+public class ReactiveRentalResource {
+
+    @Inject
+    @RestClient
+    ReservationClient reservationClient;
+
+    @Inject
+    @Channel("invoices-adjust")
+    Emitter<InvoiceAdjust> adjustmentEmitter;
+
+    @Path("/start/{userId}/{reservationId}")
+    @POST
+    public Uni<ReactiveRental> start(String userId,
+                                     Long reservationId,
+                                     @RestQuery LocalDate endDay) {
+        Log.infof("Starting rental for %s with reservation %s",
+            userId, reservationId);
+        return ReactiveRental.start(userId, reservationId, LocalDate.now(), endDay);
+    }
+
+    @PUT
+    @Path("/end/{userId}/{reservationId}")
+    public Uni<ReactiveRental> end(String userId, Long reservationId) {
+        Log.infof("Ending rental for %s with reservation %s",
+            userId, reservationId);
+
+        return ReactiveRental.findByUserAndReservationIds(userId, reservationId)
+            .onItem().ifNull().failWith(() -> new NotFoundException("Rental not found"))
+            .chain(rental -> {
+                if (!rental.paid) {
+                    Log.warn("Rental is not paid: " + rental);
+                    // trigger error processing
+                }
+                Uni<LocalDate> reservationEndDay = rental.reservationEndDay != null
+                    ? Uni.createFrom().item(rental.reservationEndDay)
+                    : reservationClient.getByIdAsync(reservationId)
+                        .map(reservation -> reservation.endDay);
+                return reservationEndDay
+                    .chain(endDay -> {
+                        LocalDate today = LocalDate.now();
+                        if (!endDay.isEqual(today)) {
+                            Log.infof("Adjusting price for rental %s. Original " +
+                                "reservation end day was %s.", rental, endDay);
+                            adjustmentEmitter.send(new InvoiceAdjust(
+                                rental.id.toString(), userId, today,
+                                RentalResource.computePrice(endDay, today)));
+                        }
+
+                        rental.endDate = today;
+                        rental.active = false;
+                        return rental.<ReactiveRental>update();
+                    });
+            });
+    }
+
+    @GET
+    public Uni<List<ReactiveRental>> list() {
+        return ReactiveRental.listAll();
+    }
+
+    @GET
+    @Path("/active")
+    public Uni<List<ActiveRental>> listActive(@RestQuery String after,
+                                              @RestQuery @DefaultValue("" + RentalResource.DEFAULT_PAGE_SIZE) int size) {
+        return ReactiveRental.listActive(RentalResource.toObjectId(after),
+            Math.clamp(size, 1, RentalResource.MAX_PAGE_SIZE));
+    }
+
+    @GET
+    @Path("/active/count")
+    public Uni<Long> countActive() {
+        return ReactiveRental.countActive();
+    }
+}
@@ -1,30 +1,38 @@
 package org.acme.rental;
 
+import io.quarkus.arc.profile.UnlessBuildProfile;
 import io.quarkus.logging.Log;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import org.acme.rental.billing.InvoiceAdjust;
+import org.acme.rental.entity.ActiveRental;
 import org.acme.rental.entity.Rental;
-import org.acme.rental.reservation.Reservation;
 import org.acme.rental.reservation.ReservationClient;
 import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.bson.types.ObjectId;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.RestQuery;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Optional;
 
 @Path("/rental")
+@UnlessBuildProfile("reactive")
 public class RentalResource {
 
     public static final double STANDARD_REFUND_RATE_PER_DAY = -10.99;
     public static final double STANDARD_PRICE_FOR_PROLONGED_DAY = 25.99;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
 
     @Inject
     @RestClient
@@ -36,34 +44,21 @@ public class RentalResource {
 
     @Path("/start/{userId}/{reservationId}")
     @POST
+    @RunOnVirtualThread
     public Rental start(String userId,
-                        Long reservationId) {
+                        Long reservationId,
+                        @RestQuery LocalDate endDay) {
         Log.infof("Starting rental for %s with reservation %s",
             userId, reservationId);
 
-        Optional<Rental> rentalOptional = Rental
-            .findByUserAndReservationIdsOptional(userId, reservationId);
-
-        Rental rental;
-        if (rentalOptional.isPresent()) {
-            // received confirmed invoice before
-            rental = rentalOptional.get();
-            rental.active = true;
-            rental.update();
-        } else {
-            // rental starting right now before payment
-            rental = new Rental();
-            rental.userId = userId;
-            rental.reservationId = reservationId;
-            rental.startDate = LocalDate.now();
-            rental.active = true;
-            rental.persist();
-        }
-        return rental;
+        // activates the rental created by a confirmed invoice received
+        // before, or creates a rental starting right now before payment
+        return Rental.start(userId, reservationId, LocalDate.now(), endDay);
     }
 
     @PUT
     @Path("/end/{userId}/{reservationId}")
+    @RunOnVirtualThread
     public Rental end(String userId, Long reservationId) {
         Log.infof("Ending rental for %s with reservation %s",
             userId, reservationId);
@@ -77,16 +72,19 @@ public class RentalResource {
             // trigger error processing
         }
 
-        Reservation reservation = reservationClient
-            .getById(reservationId);
+        // only the rentals created without the reservation end day need
+        // to ask reservation-service for it
+        LocalDate reservationEndDay = rental.reservationEndDay != null
+            ? rental.reservationEndDay
+            : reservationClient.getById(reservationId).endDay;
 
         LocalDate today = LocalDate.now();
-        if (!reservation.endDay.isEqual(today)) {
+        if (!reservationEndDay.isEqual(today)) {
             Log.infof("Adjusting price for rental %s. Original " +
-                "reservation end day was %s.", rental, reservation.endDay);
+                "reservation end day was %s.", rental, reservationEndDay);
             adjustmentEmitter.send(new InvoiceAdjust(
                     rental.id.toString(), userId, today,
-                computePrice(reservation.endDay, today)));
+                computePrice(reservationEndDay, today)));
         }
 
         rental.endDate = today;
@@ -95,7 +93,7 @@ public class RentalResource {
         return rental;
     }
 
-    private double computePrice(LocalDate endDate, LocalDate today) {
+    static double computePrice(LocalDate endDate, LocalDate today) {
         return endDate.isBefore(today) ?
             ChronoUnit.DAYS.between(endDate, today)
                 * STANDARD_PRICE_FOR_PROLONGED_DAY :
@@ -103,14 +101,36 @@ public class RentalResource {
                 * STANDARD_REFUND_RATE_PER_DAY;
     }
 
+    static ObjectId toObjectId(String id) {
+        if (id == null) {
+            return null;
+        }
+        if (!ObjectId.isValid(id)) {
+            throw new BadRequestException("Invalid rental id " + id);
+        }
+        return new ObjectId(id);
+    }
+
     @GET
     public List<Rental> list() {
         return Rental.listAll();
     }
 
+    /**
+     * One page of the active rentals ordered by id. The next page is
+     * requested passing the id of the last rental of this page as after.
+     */
     @GET
     @Path("/active")
-    public List<Rental> listActive() {
-        return Rental.listActive();
+    public List<ActiveRental> listActive(@RestQuery String after,
+                                         @RestQuery @DefaultValue("" + DEFAULT_PAGE_SIZE) int size) {
+        return Rental.listActive(toObjectId(after),
+            Math.clamp(size, 1, MAX_PAGE_SIZE));
+    }
+
+    @GET
+    @Path("/active/count")
+    public long countActive() {
+        return Rental.countActive();
     }
 }
@@ -0,0 +1,21 @@
+package org.acme.rental.entity;
+
+import io.quarkus.mongodb.panache.common.ProjectionFor;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of an active {@link Rental} listed by the fleet dashboards,
+ * read from the active rentals index without the full document.
+ */
+@ProjectionFor(Rental.class)
+public class ActiveRental {
+
+    public ObjectId id;
+    public String userId;
+    public Long reservationId;
+    public LocalDate startDate;
+    public LocalDate reservationEndDay;
+    public boolean paid;
+}
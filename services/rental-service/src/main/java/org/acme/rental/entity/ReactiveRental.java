@@ -0,0 +1,99 @@
+package org.acme.rental.entity;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoEntity;
+import io.quarkus.panache.common.Page;
+import io.smallrye.mutiny.Uni;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking view of the {@link Rental} collection, used by the
+ * reactive build profile. The queries and upserts are the ones of
+ * {@link Rental}.
+ */
+@MongoEntity(collection = "Rental")
+public class ReactiveRental extends ReactivePanacheMongoEntity {
+
+    public boolean paid;
+    public String userId;
+    public Long reservationId;
+    public LocalDate startDate;
+    public LocalDate endDate;
+    public boolean active;
+    /**
+     * End day of the reservation, copied here so that ending the rental
+     * needs no call to reservation-service. Null for the rentals created
+     * before it was recorded.
+     */
+    public LocalDate reservationEndDay;
+
+    public static Uni<ReactiveRental> findByUserAndReservationIds(
+        String userId, Long reservationId) {
+        return find("userId = ?1 and reservationId = ?2",
+            userId, reservationId)
+            .firstResult();
+    }
+
+    /**
+     * @see Rental#start
+     */
+    public static Uni<ReactiveRental> start(String userId, Long reservationId,
+                                            LocalDate startDate,
+                                            LocalDate reservationEndDay) {
+        return mongoCollection().findOneAndUpdate(
+            Rental.byUserAndReservation(userId, reservationId),
+            Rental.startUpdate(startDate, reservationEndDay), Rental.UPSERT);
+    }
+
+    /**
+     * @see Rental#markPaidWrite
+     */
+    public static WriteModel<ReactiveRental> markPaidWrite(String userId,
+                                                           Long reservationId,
+                                                           LocalDate startDate,
+                                                           LocalDate reservationEndDay) {
+        return new UpdateOneModel<>(Rental.byUserAndReservation(userId, reservationId),
+            Rental.paidUpdate(startDate, reservationEndDay), Rental.UPSERT_ONE);
+    }
+
+    /**
+     * @see Rental#bulkWrite
+     */
+    public static Uni<BulkWriteResult> bulkWrite(List<WriteModel<ReactiveRental>> writes) {
+        return mongoCollection().bulkWrite(writes, Rental.UNORDERED);
+    }
+
+    /**
+     * Same keyset pagination as {@link Rental#listActive}.
+     */
+    public static Uni<List<ActiveRental>> listActive(ObjectId after, int size) {
+        return find(Rental.activeAfter(after), Rental.BY_ID)
+            .project(ActiveRental.class)
+            .page(Page.ofSize(size))
+            .list();
+    }
+
+    public static Uni<Long> countActive() {
+        return count("active", true);
+    }
+
+    @Override
+    public String toString() {
+        return "ReactiveRental{" +
+            "paid=" + paid +
+            ", userId='" + userId + '\'' +
+            ", reservationId=" + reservationId +
+            ", startDate=" + startDate +
+            ", endDate=" + endDate +
+            ", active=" + active +
+            ", reservationEndDay=" + reservationEndDay +
+            ", id=" + id +
+            '}';
+    }
+}
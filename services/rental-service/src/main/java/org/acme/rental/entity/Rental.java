@@ -1,19 +1,55 @@
 package org.acme.rental.entity;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.logging.Log;
 import io.quarkus.mongodb.panache.PanacheMongoEntity;
+import io.quarkus.panache.common.Page;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 public class Rental extends PanacheMongoEntity {
 
+    static final FindOneAndUpdateOptions UPSERT =
+        new FindOneAndUpdateOptions()
+            .upsert(true)
+            .returnDocument(ReturnDocument.AFTER);
+    static final UpdateOptions UPSERT_ONE = new UpdateOptions().upsert(true);
+    static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    static final Document BY_ID = new Document("_id", 1);
+
     public boolean paid;
     public String userId;
     public Long reservationId;
     public LocalDate startDate;
     public LocalDate endDate;
     public boolean active;
+    /**
+     * End day of the reservation, copied here so that ending the rental
+     * needs no call to reservation-service. Null for the rentals created
+     * before it was recorded.
+     */
+    public LocalDate reservationEndDay;
 
     public static Optional<Rental> findByUserAndReservationIdsOptional(
         String userId, Long reservationId) {
@@ -22,8 +58,158 @@ public class Rental extends PanacheMongoEntity {
             .firstResultOptional();
     }
 
-    public static List<Rental> listActive() {
-        return list("active", true);
+    /**
+     * Activate the rental of the reservation, creating it if no invoice
+     * confirmation was received before, with a single atomic upsert.
+     */
+    public static Rental start(String userId, Long reservationId,
+                               LocalDate startDate,
+                               LocalDate reservationEndDay) {
+        return mongoCollection().findOneAndUpdate(
+            byUserAndReservation(userId, reservationId),
+            startUpdate(startDate, reservationEndDay), UPSERT);
+    }
+
+    /**
+     * Mark the rental of the reservation as paid, creating it as a rental
+     * starting in the future if it was not started yet. The upsert is
+     * applied with {@link #bulkWrite} together with the ones of other
+     * reservations.
+     */
+    public static WriteModel<Rental> markPaidWrite(String userId,
+                                                   Long reservationId,
+                                                   LocalDate startDate,
+                                                   LocalDate reservationEndDay) {
+        return new UpdateOneModel<>(byUserAndReservation(userId, reservationId),
+            paidUpdate(startDate, reservationEndDay), UPSERT_ONE);
+    }
+
+    /**
+     * Apply all the writes with a single unordered bulk write.
+     */
+    public static BulkWriteResult bulkWrite(List<WriteModel<Rental>> writes) {
+        return mongoCollection().bulkWrite(writes, UNORDERED);
+    }
+
+    static Bson byUserAndReservation(String userId, Long reservationId) {
+        return Filters.and(
+            Filters.eq("userId", userId),
+            Filters.eq("reservationId", reservationId));
+    }
+
+    static Bson startUpdate(LocalDate startDate, LocalDate reservationEndDay) {
+        List<Bson> updates = new ArrayList<>(List.of(
+            Updates.set("active", true),
+            Updates.setOnInsert("startDate", startDate),
+            Updates.setOnInsert("paid", false)));
+        if (reservationEndDay != null) {
+            updates.add(Updates.set("reservationEndDay", reservationEndDay));
+        }
+        return Updates.combine(updates);
+    }
+
+    static Bson paidUpdate(LocalDate startDate, LocalDate reservationEndDay) {
+        List<Bson> updates = new ArrayList<>(List.of(
+            Updates.set("paid", true),
+            Updates.setOnInsert("startDate", startDate),
+            Updates.setOnInsert("active", false)));
+        if (reservationEndDay != null) {
+            updates.add(Updates.set("reservationEndDay", reservationEndDay));
+        }
+        return Updates.combine(updates);
+    }
+
+    /**
+     * Create the indexes of the lookups, if missing. The unique index also
+     * makes the server retry two concurrent upserts of the same rental
+     * instead of inserting it twice. The active rentals index only holds
+     * the rentals with active true, so it is the set of the active rentals
+     * kept up to date by start and end, and its size does not grow with
+     * the history of the ended rentals. The duplicates that fail the build
+     * of the unique index are removed only then, so that startup does not
+     * scan the whole collection once the index exists.
+     */
+    public static void createIndexes() {
+        try {
+            createUniqueIndex();
+        } catch (MongoCommandException e) {
+            if (ErrorCategory.fromErrorCode(e.getErrorCode()) != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            removeDuplicates();
+            createUniqueIndex();
+        }
+        mongoCollection().createIndex(
+            Indexes.ascending("_id"),
+            new IndexOptions().name("rental_active_set_idx")
+                .partialFilterExpression(Filters.eq("active", true)));
+    }
+
+    static void createUniqueIndex() {
+        mongoCollection().createIndex(
+            Indexes.ascending("userId", "reservationId"),
+            new IndexOptions().name("rental_user_reservation_idx").unique(true));
+    }
+
+    /**
+     * Merge the rentals of the same user and reservation created by the
+     * read-then-insert of the previous versions, which would fail the build
+     * of the unique index. The oldest rental is kept, paid and active if
+     * any of its duplicates is, and the others are deleted.
+     * @return the number of deleted duplicates
+     */
+    static long removeDuplicates() {
+        long deleted = 0;
+        List<Bson> pipeline = List.of(
+            Aggregates.group(new Document("userId", "$userId")
+                    .append("reservationId", "$reservationId"),
+                Accumulators.push("ids", "$_id"),
+                Accumulators.max("paid", "$paid"),
+                Accumulators.max("active", "$active"),
+                Accumulators.sum("count", 1)),
+            Aggregates.match(Filters.gt("count", 1)));
+        for (Document duplicates : mongoCollection()
+                .aggregate(pipeline, Document.class).allowDiskUse(true)) {
+            List<ObjectId> ids = new ArrayList<>(duplicates.getList("ids", ObjectId.class));
+            Collections.sort(ids);
+            mongoCollection().updateOne(Filters.eq("_id", ids.get(0)), Updates.combine(
+                Updates.set("paid", Boolean.TRUE.equals(duplicates.getBoolean("paid"))),
+                Updates.set("active", Boolean.TRUE.equals(duplicates.getBoolean("active")))));
+            deleted += mongoCollection()
+                .deleteMany(Filters.in("_id", ids.subList(1, ids.size())))
+                .getDeletedCount();
+        }
+        if (deleted > 0) {
+            Log.warn("Removed " + deleted + " duplicate rentals.");
+        }
+        return deleted;
+    }
+
+    /**
+     * Keyset pagination of the active rentals on the id.
+     * @param after the id of the last rental of the previous page, null
+     * for the first page
+     * @return at most size active rentals with an id greater than after
+     */
+    public static List<ActiveRental> listActive(ObjectId after, int size) {
+        return find(activeAfter(after), BY_ID)
+            .project(ActiveRental.class)
+            .page(Page.ofSize(size))
+            .list();
+    }
+
+    /**
+     * Counted on the active rentals index, so the cost grows with the
+     * number of active rentals, not with the whole history.
+     */
+    public static long countActive() {
+        return count("active", true);
+    }
+
+    static Document activeAfter(ObjectId after) {
+        Document query = new Document("active", true);
+        return after == null ? query
+            : query.append("_id", new Document("$gt", after));
     }
 
     @Override
@@ -35,6 +221,7 @@ public class Rental extends PanacheMongoEntity {
             ", startDate=" + startDate +
             ", endDate=" + endDate +
             ", active=" + active +
+            ", reservationEndDay=" + reservationEndDay +
             ", id=" + id +
             '}';
     }
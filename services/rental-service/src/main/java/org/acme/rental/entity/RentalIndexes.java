@@ -0,0 +1,22 @@
+package org.acme.rental.entity;
+
+import com.mongodb.MongoException;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+@ApplicationScoped
+public class RentalIndexes {
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            Rental.createIndexes();
+            Log.info("Rental indexes ready.");
+        } catch (MongoException e) {
+            // the service still works without them, only slower and
+            // without the protection against duplicate upserts
+            Log.error("Unable to create the rental indexes.", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.acme.rental.invoice;
+
+import com.mongodb.MongoBulkWriteException;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.rental.invoice.data.InvoiceConfirmation;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+
+import java.util.List;
+
+/**
+ * Publishes the invoice confirmations whose rental could not be marked as
+ * paid to the invoices-confirmations-dlq topic, where they can be
+ * inspected and replayed instead of being lost with the acknowledged
+ * batch.
+ */
+@ApplicationScoped
+public class InvoiceConfirmationDeadLetters {
+
+    @Inject
+    @Channel("invoices-confirmations-dlq")
+    MutinyEmitter<InvoiceConfirmation> deadLetterEmitter;
+
+    /**
+     * The bulk write is unordered, so the writes that did not fail are
+     * applied: only the failed confirmations are dead-lettered, and the
+     * batch is acknowledged once they are, so that one bad record does not
+     * stop the channel. A write concern error is rethrown, the writes may
+     * not be durable.
+     */
+    public Uni<Void> failedWrites(MongoBulkWriteException e,
+                                  List<InvoiceConfirmation> invoiceConfirmations) {
+        if (e.getWriteConcernError() != null) {
+            return Uni.createFrom().failure(e);
+        }
+        return Multi.createFrom().iterable(e.getWriteErrors())
+            .onItem().transformToUniAndConcatenate(error -> {
+                InvoiceConfirmation invoiceConfirmation =
+                    invoiceConfirmations.get(error.getIndex());
+                Log.error("Unable to mark the rental of " + invoiceConfirmation
+                    + " as paid, sending it to the dead letter topic: "
+                    + error.getMessage());
+                return deadLetterEmitter.send(invoiceConfirmation);
+            })
+            .collect().asList()
+            .replaceWithVoid();
+    }
+}
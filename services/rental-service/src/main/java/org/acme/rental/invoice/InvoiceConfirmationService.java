@@ -1,42 +1,57 @@
 package org.acme.rental.invoice;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.arc.profile.UnlessBuildProfile;
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.acme.rental.entity.Rental;
 import org.acme.rental.invoice.data.InvoiceConfirmation;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ApplicationScoped
+@UnlessBuildProfile("reactive")
 public class InvoiceConfirmationService {
 
+    @Inject
+    InvoiceConfirmationDeadLetters deadLetters;
+
+    /**
+     * Receives the confirmations of a Kafka poll at once and applies them
+     * with a single bulk write, the offsets are committed per batch.
+     */
     @Incoming("invoices-confirmations")
-    public void invoicePaid(InvoiceConfirmation invoiceConfirmation) {
-        Log.info("Received invoice confirmation " + invoiceConfirmation);
+    public void invoicesPaid(List<InvoiceConfirmation> invoiceConfirmations) {
+        Log.info("Received " + invoiceConfirmations.size()
+            + " invoice confirmations");
 
-        if (!invoiceConfirmation.paid) {
-            Log.warn("Received unpaid invoice confirmation - "
-                + invoiceConfirmation);
-            // retry handling omitted
-        }
+        List<WriteModel<Rental>> writes = new ArrayList<>();
+        for (InvoiceConfirmation invoiceConfirmation : invoiceConfirmations) {
+            if (!invoiceConfirmation.paid) {
+                Log.warn("Received unpaid invoice confirmation - "
+                    + invoiceConfirmation);
+                // retry handling omitted
+            }
 
-        InvoiceConfirmation.InvoiceReservation reservation =
-            invoiceConfirmation.invoice.reservation;
-
-        Rental.findByUserAndReservationIdsOptional(
-                reservation.userId, reservation.id)
-            .ifPresentOrElse(rental -> {
-                // mark the already started rental as paid
-                rental.paid = true;
-                rental.update();
-            }, () -> {
-                // create new rental starting in the future
-                Rental rental = new Rental();
-                rental.userId = reservation.userId;
-                rental.reservationId = reservation.id;
-                rental.startDate = reservation.startDay;
-                rental.active = false;
-                rental.paid = true;
-                rental.persist();
-            });
+            InvoiceConfirmation.InvoiceReservation reservation =
+                invoiceConfirmation.invoice.reservation;
+
+            // marks the already started rental as paid, or creates a new
+            // rental starting in the future
+            writes.add(Rental.markPaidWrite(reservation.userId,
+                reservation.id, reservation.startDay, reservation.endDay));
+        }
+        if (!writes.isEmpty()) {
+            try {
+                Rental.bulkWrite(writes);
+            } catch (MongoBulkWriteException e) {
+                deadLetters.failedWrites(e, invoiceConfirmations)
+                    .await().indefinitely();
+            }
+        }
     }
 }
@@ -0,0 +1,54 @@
+package org.acme.rental.invoice;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.rental.entity.ReactiveRental;
+import org.acme.rental.invoice.data.InvoiceConfirmation;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking twin of {@link InvoiceConfirmationService}, built instead
+ * of it with the reactive build profile.
+ */
+@ApplicationScoped
+@IfBuildProfile("reactive")
+public class ReactiveInvoiceConfirmationService {
+
+    @Inject
+    InvoiceConfirmationDeadLetters deadLetters;
+
+    @Incoming("invoices-confirmations")
+    public Uni<Void> invoicesPaid(List<InvoiceConfirmation> invoiceConfirmations) {
+        Log.info("Received " + invoiceConfirmations.size()
+            + " invoice confirmations");
+
+        List<WriteModel<ReactiveRental>> writes = new ArrayList<>();
+        for (InvoiceConfirmation invoiceConfirmation : invoiceConfirmations) {
+            if (!invoiceConfirmation.paid) {
+                Log.warn("Received unpaid invoice confirmation - "
+                    + invoiceConfirmation);
+                // retry handling omitted
+            }
+
+            InvoiceConfirmation.InvoiceReservation reservation =
+                invoiceConfirmation.invoice.reservation;
+            writes.add(ReactiveRental.markPaidWrite(reservation.userId,
+                reservation.id, reservation.startDay, reservation.endDay));
+        }
+        if (writes.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return ReactiveRental.bulkWrite(writes).replaceWithVoid()
+            .onFailure(MongoBulkWriteException.class).recoverWithUni(e ->
+                deadLetters.failedWrites((MongoBulkWriteException) e,
+                    invoiceConfirmations));
+    }
+}
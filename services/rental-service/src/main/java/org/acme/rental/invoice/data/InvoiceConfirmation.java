@@ -32,6 +32,7 @@ public class InvoiceConfirmation {
         public Long id;
         public String userId;
         public LocalDate startDay;
+        public LocalDate endDay;
 
         @Override
         public String toString() {
@@ -39,6 +40,7 @@ public class InvoiceConfirmation {
                 "id=" + id +
                 ", userId='" + userId + '\'' +
                 ", startDay=" + startDay +
+                ", endDay=" + endDay +
                 '}';
         }
     }
@@ -1,5 +1,6 @@
 package org.acme.rental.reservation;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
@@ -10,4 +11,8 @@ public interface ReservationClient {
     @GET
     @Path("/admin/reservation/{id}")
     Reservation getById(Long id);
+
+    @GET
+    @Path("/admin/reservation/{id}")
+    Uni<Reservation> getByIdAsync(Long id);
 }
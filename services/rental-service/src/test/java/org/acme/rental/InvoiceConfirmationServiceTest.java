@@ -0,0 +1,118 @@
+package org.acme.rental;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.kafka.InjectKafkaCompanion;
+import io.quarkus.test.kafka.KafkaCompanionResource;
+import io.smallrye.reactive.messaging.kafka.companion.KafkaCompanion;
+import jakarta.inject.Inject;
+import org.acme.rental.entity.Rental;
+import org.acme.rental.invoice.InvoiceConfirmationDeadLetters;
+import org.acme.rental.invoice.data.InvoiceConfirmation;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@QuarkusTestResource(KafkaCompanionResource.class)
+public class InvoiceConfirmationServiceTest {
+
+    private static final String USER_ID = "invoice-batch-user";
+
+    @InjectKafkaCompanion
+    KafkaCompanion kafkaCompanion;
+
+    @Inject
+    InvoiceConfirmationDeadLetters deadLetters;
+
+    @AfterEach
+    public void deleteRentals() {
+        Rental.delete("userId", USER_ID);
+    }
+
+    @Test
+    public void testBatchMarksRentalsPaid() {
+        LocalDate startDay = LocalDate.now().plusDays(1);
+        LocalDate endDay = startDay.plusDays(2);
+
+        // the confirmation of reservation 102 is delivered twice
+        kafkaCompanion.produceStrings().fromRecords(
+                confirmation(101L, startDay, endDay),
+                confirmation(102L, startDay, endDay),
+                confirmation(102L, startDay, endDay),
+                confirmation(103L, startDay, endDay))
+            .awaitCompletion(Duration.ofSeconds(10));
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            List<Rental> rentals = Rental.list("userId", USER_ID);
+            assertEquals(3, rentals.size());
+            for (Rental rental : rentals) {
+                assertTrue(rental.paid, () -> "not paid: " + rental);
+                assertEquals(endDay, rental.reservationEndDay);
+            }
+        });
+    }
+
+    @Test
+    public void testFailedWritesAreDeadLettered() {
+        LocalDate startDay = LocalDate.now().plusDays(1);
+        List<InvoiceConfirmation> invoiceConfirmations = List.of(
+            invoiceConfirmation(201L, startDay), invoiceConfirmation(202L, startDay));
+        // only the second write of the batch failed
+        MongoBulkWriteException failure = new MongoBulkWriteException(
+            BulkWriteResult.unacknowledged(),
+            List.of(new BulkWriteError(2, "failed", new BsonDocument(), 1)),
+            null, new ServerAddress(), Set.of());
+
+        deadLetters.failedWrites(failure, invoiceConfirmations)
+            .await().atMost(Duration.ofSeconds(10));
+
+        ConsumerRecord<String, String> deadLetter = kafkaCompanion.consumeStrings()
+            .fromTopics("invoices-confirmations-dlq", 1)
+            .awaitCompletion(Duration.ofSeconds(10))
+            .getFirstRecord();
+        assertTrue(deadLetter.value().contains("\"id\":202"), deadLetter::value);
+    }
+
+    private static InvoiceConfirmation invoiceConfirmation(Long reservationId,
+                                                           LocalDate startDay) {
+        InvoiceConfirmation.InvoiceReservation reservation =
+            new InvoiceConfirmation.InvoiceReservation();
+        reservation.id = reservationId;
+        reservation.userId = USER_ID;
+        reservation.startDay = startDay;
+        reservation.endDay = startDay.plusDays(2);
+        InvoiceConfirmation invoiceConfirmation = new InvoiceConfirmation();
+        invoiceConfirmation.invoice = new InvoiceConfirmation.Invoice();
+        invoiceConfirmation.invoice.paid = true;
+        invoiceConfirmation.invoice.reservation = reservation;
+        invoiceConfirmation.paid = true;
+        return invoiceConfirmation;
+    }
+
+    private static ProducerRecord<String, String> confirmation(Long reservationId,
+                                                               LocalDate startDay,
+                                                               LocalDate endDay) {
+        return new ProducerRecord<>("invoices-confirmations",
+            "{\"paid\":true,\"invoice\":{\"paid\":true,\"reservation\":{" +
+                "\"id\":" + reservationId +
+                ",\"userId\":\"" + USER_ID + "\"" +
+                ",\"startDay\":\"" + startDay + "\"" +
+                ",\"endDay\":\"" + endDay + "\"}}}");
+    }
+}
@@ -3,13 +3,17 @@ package org.acme.rental;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusMock;
 import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit5.virtual.ShouldNotPin;
+import io.quarkus.test.junit5.virtual.VirtualThreadUnit;
 import io.quarkus.test.kafka.InjectKafkaCompanion;
 import io.quarkus.test.kafka.KafkaCompanionResource;
 import io.smallrye.reactive.messaging.kafka.companion.ConsumerTask;
 import io.smallrye.reactive.messaging.kafka.companion.KafkaCompanion;
+import org.acme.rental.entity.Rental;
 import org.acme.rental.reservation.Reservation;
 import org.acme.rental.reservation.ReservationClient;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -17,14 +21,19 @@ import java.time.Duration;
 import java.time.LocalDate;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @QuarkusTestResource(KafkaCompanionResource.class)
+@VirtualThreadUnit
+@ShouldNotPin
 public class RentalResourceTest {
 
+    private static final String ACTIVE_USER_ID = "active-listing-user";
+
     @InjectKafkaCompanion
     KafkaCompanion kafkaCompanion;
 
@@ -61,5 +70,80 @@ public class RentalResourceTest {
             .contains("\"price\":" +
                 RentalResource.STANDARD_PRICE_FOR_PROLONGED_DAY));
     }
-}
 
+    @Test
+    public void testRentalEndUsesStoredReservationEndDay() {
+        ReservationClient mock = Mockito.mock(ReservationClient.class);
+        QuarkusMock.installMockForType(mock, ReservationClient.class,
+            RestClient.LITERAL);
+
+        // start a rental that carries the end day of reservation 2
+        given()
+            .queryParam("endDay", LocalDate.now().toString())
+            .when().post("/rental/start/user123/2")
+            .then().statusCode(200);
+
+        given()
+            .when().put("/rental/end/user123/2")
+            .then().statusCode(200)
+            .body("active", is(false));
+
+        // the end day was known, so reservation-service was never called
+        Mockito.verify(mock, Mockito.never()).getById(2L);
+    }
+
+    @Test
+    public void testActiveRentalsListingAndCount() {
+        int activeCount = given()
+            .when().get("/rental/active/count")
+            .then().statusCode(200)
+            .extract().as(Integer.class);
+
+        String firstId = given()
+            .queryParam("endDay", LocalDate.now().toString())
+            .when().post("/rental/start/" + ACTIVE_USER_ID + "/3")
+            .then().statusCode(200)
+            .extract().path("id");
+        given()
+            .queryParam("endDay", LocalDate.now().toString())
+            .when().post("/rental/start/" + ACTIVE_USER_ID + "/4")
+            .then().statusCode(200);
+
+        given()
+            .when().get("/rental/active/count")
+            .then().statusCode(200)
+            .body(is(String.valueOf(activeCount + 2)));
+
+        // the page after the first rental starts with the second one and
+        // holds only the projected fields
+        given()
+            .queryParam("after", firstId)
+            .queryParam("size", 1)
+            .when().get("/rental/active")
+            .then().statusCode(200)
+            .body("size()", is(1),
+                "[0].reservationId", is(4),
+                "[0].userId", is(ACTIVE_USER_ID),
+                "[0].keySet()", containsInAnyOrder("id", "userId",
+                    "reservationId", "startDate", "reservationEndDay", "paid"));
+
+        given()
+            .when().put("/rental/end/" + ACTIVE_USER_ID + "/3")
+            .then().statusCode(200);
+
+        given()
+            .when().get("/rental/active/count")
+            .then().statusCode(200)
+            .body(is(String.valueOf(activeCount + 1)));
+
+        given()
+            .queryParam("after", "not-an-id")
+            .when().get("/rental/active")
+            .then().statusCode(400);
+    }
+
+    @AfterEach
+    public void deleteActiveRentals() {
+        Rental.delete("userId", ACTIVE_USER_ID);
+    }
+}
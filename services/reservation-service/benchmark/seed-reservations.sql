@@ -0,0 +1,17 @@
+-- Fill the reservation table with :rows one-day reservations of the 10
+-- cars of import.sql, one per day for each car, e.g.
+--   psql -v rows=10000000 -f seed-reservations.sql
+-- The days of car n end 3 * (n - 1) days from now, so the windows
+-- queried by availability.js, 0 to 37 days ahead, find some cars reserved
+-- and some available.
+-- The generated ids are negative so they never collide with the ones
+-- assigned by Hibernate.
+TRUNCATE TABLE reservation;
+INSERT INTO reservation (id, carid, userid, startday, endday)
+SELECT -g,
+       1 + g % 10,
+       'benchmark',
+       CURRENT_DATE + 3 * (g % 10) - g / 10,
+       CURRENT_DATE + 3 * (g % 10) - g / 10
+FROM generate_series(1, :rows) AS g;
+ANALYZE reservation;
@@ -0,0 +1,45 @@
+package org.acme.reservation.availability;
+
+import java.time.LocalDate;
+
+/**
+ * A car that became available or unavailable. The days are null when the
+ * change concerns every day, i.e. a car added to or removed from the fleet.
+ */
+public class AvailabilityChange {
+
+    public enum Type {
+        ADDED, REMOVED
+    }
+
+    public Type type;
+    public Long carId;
+    public LocalDate startDay;
+    public LocalDate endDay;
+
+    public AvailabilityChange() {
+    }
+
+    public AvailabilityChange(Type type, Long carId,
+                              LocalDate startDay, LocalDate endDay) {
+        this.type = type;
+        this.carId = carId;
+        this.startDay = startDay;
+        this.endDay = endDay;
+    }
+
+    public boolean concerns(LocalDate startDay, LocalDate endDay) {
+        return this.startDay == null
+            || (!(this.endDay.isBefore(startDay) || this.startDay.isAfter(endDay)));
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityChange{" +
+            "type=" + type +
+            ", carId=" + carId +
+            ", startDay=" + startDay +
+            ", endDay=" + endDay +
+            '}';
+    }
+}
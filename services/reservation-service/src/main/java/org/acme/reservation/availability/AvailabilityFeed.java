@@ -0,0 +1,44 @@
+package org.acme.reservation.availability;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.reservation.entity.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * Hot stream of the availability changes seen by this instance: the
+ * reservations it makes and the fleet changes of the inventory.
+ */
+@ApplicationScoped
+public class AvailabilityFeed {
+
+    private static final int SUBSCRIBER_BUFFER_SIZE = 256;
+
+    private final BroadcastProcessor<AvailabilityChange> changes =
+        BroadcastProcessor.create();
+
+    public void reserved(Reservation reservation) {
+        publish(new AvailabilityChange(AvailabilityChange.Type.REMOVED,
+            reservation.carId, reservation.startDay, reservation.endDay));
+    }
+
+    public void fleetChanged(AvailabilityChange.Type type, Long carId) {
+        publish(new AvailabilityChange(type, carId, null, null));
+    }
+
+    // the processor requires its items to be emitted serially
+    private synchronized void publish(AvailabilityChange change) {
+        changes.onNext(change);
+    }
+
+    /**
+     * @return the changes that concern the given duration, from now on
+     */
+    public Multi<AvailabilityChange> changes(LocalDate startDay, LocalDate endDay) {
+        return changes
+            .select().where(change -> change.concerns(startDay, endDay))
+            .onOverflow().buffer(SUBSCRIBER_BUFFER_SIZE);
+    }
+}
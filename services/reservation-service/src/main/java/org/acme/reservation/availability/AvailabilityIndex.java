@@ -0,0 +1,214 @@
+package org.acme.reservation.availability;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.acme.reservation.entity.Reservation;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the reserved days of each car, so that availability
+ * can be answered without going to the database.
+ * The index is loaded from the current and future reservations at
+ * startup and kept up to date by {@link #add} with the reservations of
+ * every instance, shared by {@link ReservationEvents}. It is reloaded
+ * every availability-index.refresh-interval, which drops the expired
+ * reservations and picks up the ones deleted through the admin resource.
+ * With availability-index.enabled set to false {@link #isReady()} stays
+ * false and callers query the database instead, as they do until the
+ * first load is complete.
+ */
+@ApplicationScoped
+public class AvailabilityIndex {
+
+    private final boolean enabled;
+    private volatile Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // the reservations added while a load runs, replayed on the loaded index
+    private List<Reservation> addedDuringLoad;
+
+    public AvailabilityIndex(@ConfigProperty(name = "availability-index.enabled", defaultValue = "true")
+                             boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            Infrastructure.getDefaultWorkerPool().execute(this::load);
+        }
+    }
+
+    @Scheduled(every = "${availability-index.refresh-interval:5m}",
+        delayed = "${availability-index.refresh-interval:5m}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        if (enabled) {
+            load();
+        }
+    }
+
+    void load() {
+        synchronized (this) {
+            addedDuringLoad = new ArrayList<>();
+        }
+        try {
+            // ordered by car and start day, so each timeline is built in one pass
+            List<Object[]> rows = VertxContextSupport.subscribeAndAwait(() ->
+                Panache.withSession(() -> Panache.getSession().chain(session -> session
+                    .createSelectionQuery("select r.carId, r.startDay, r.endDay " +
+                        "from Reservation r where r.endDay >= :today " +
+                        "order by r.carId, r.startDay", Object[].class)
+                    .setParameter("today", LocalDate.now())
+                    .getResultList())));
+            Map<Long, Timeline> loaded = new ConcurrentHashMap<>();
+            int from = 0;
+            for (int i = 1; i <= rows.size(); i++) {
+                if (i == rows.size() || !rows.get(i)[0].equals(rows.get(from)[0])) {
+                    loaded.put((Long) rows.get(from)[0], Timeline.of(rows.subList(from, i)));
+                    from = i;
+                }
+            }
+            synchronized (this) {
+                timelines = loaded;
+                addedDuringLoad.forEach(this::merge);
+                addedDuringLoad = null;
+            }
+            ready = true;
+            Log.info("Availability index loaded with " + rows.size() + " reservations.");
+        } catch (Throwable t) {
+            synchronized (this) {
+                addedDuringLoad = null;
+            }
+            Log.error("Unable to load the availability index, " +
+                (ready ? "keeping the previous one." : "availability will be computed by the database."), t);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void add(Reservation reservation) {
+        merge(reservation);
+        if (addedDuringLoad != null) {
+            addedDuringLoad.add(reservation);
+        }
+    }
+
+    private void merge(Reservation reservation) {
+        long start = reservation.startDay.toEpochDay();
+        long end = reservation.endDay.toEpochDay();
+        timelines.merge(reservation.carId, Timeline.EMPTY.with(start, end),
+            (timeline, ignored) -> timeline.with(start, end));
+    }
+
+    /**
+     * Find the ids of the cars with at least one reservation that overlaps
+     * the given duration, same as {@link Reservation#findReservedCarIds}.
+     */
+    public List<Long> findReservedCarIds(LocalDate startDay, LocalDate endDay) {
+        long start = startDay.toEpochDay();
+        long end = endDay.toEpochDay();
+        List<Long> reservedCarIds = new ArrayList<>();
+        timelines.forEach((carId, timeline) -> {
+            if (timeline.overlaps(start, end)) {
+                reservedCarIds.add(carId);
+            }
+        });
+        return reservedCarIds;
+    }
+
+    /**
+     * Immutable reservations of a single car as epoch-day intervals sorted
+     * by start day. maxEnds[i] is the latest end day among the first i + 1
+     * intervals, so an overlap check is a single binary search.
+     */
+    static final class Timeline {
+
+        static final Timeline EMPTY = new Timeline(new long[0], new long[0], new long[0]);
+
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnds;
+
+        private Timeline(long[] starts, long[] ends, long[] maxEnds) {
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = maxEnds;
+        }
+
+        /**
+         * @param rows carId, startDay and endDay of the reservations of a
+         * car, sorted by start day
+         */
+        static Timeline of(List<Object[]> rows) {
+            int size = rows.size();
+            long[] starts = new long[size];
+            long[] ends = new long[size];
+            long[] maxEnds = new long[size];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                starts[i] = ((LocalDate) rows.get(i)[1]).toEpochDay();
+                ends[i] = ((LocalDate) rows.get(i)[2]).toEpochDay();
+                maxEnd = Math.max(maxEnd, ends[i]);
+                maxEnds[i] = maxEnd;
+            }
+            return new Timeline(starts, ends, maxEnds);
+        }
+
+        Timeline with(long start, long end) {
+            int position = upperBound(start);
+            int size = starts.length + 1;
+            long[] newStarts = new long[size];
+            long[] newEnds = new long[size];
+            long[] newMaxEnds = new long[size];
+            System.arraycopy(starts, 0, newStarts, 0, position);
+            System.arraycopy(ends, 0, newEnds, 0, position);
+            System.arraycopy(maxEnds, 0, newMaxEnds, 0, position);
+            newStarts[position] = start;
+            newEnds[position] = end;
+            System.arraycopy(starts, position, newStarts, position + 1, size - position - 1);
+            System.arraycopy(ends, position, newEnds, position + 1, size - position - 1);
+            long maxEnd = position == 0 ? Long.MIN_VALUE : newMaxEnds[position - 1];
+            for (int i = position; i < size; i++) {
+                maxEnd = Math.max(maxEnd, newEnds[i]);
+                newMaxEnds[i] = maxEnd;
+            }
+            return new Timeline(newStarts, newEnds, newMaxEnds);
+        }
+
+        boolean overlaps(long start, long end) {
+            // last interval starting on or before the end of the duration
+            int last = upperBound(end) - 1;
+            return last >= 0 && maxEnds[last] >= start;
+        }
+
+        /**
+         * @return the index of the first interval starting after the given day
+         */
+        private int upperBound(long day) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= day) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.acme.reservation.availability;
+
+import io.quarkus.logging.Log;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.reservation.entity.Reservation;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Shares the committed reservations of every instance through the
+ * reservations fanout exchange, so that the {@link AvailabilityIndex} and
+ * the {@link AvailabilityFeed} of each instance also see the reservations
+ * made by the other ones.
+ */
+@ApplicationScoped
+public class ReservationEvents {
+
+    private final MutinyEmitter<JsonObject> reservationEmitter;
+    private final AvailabilityIndex availabilityIndex;
+    private final AvailabilityFeed availabilityFeed;
+    private final String instanceId;
+
+    public ReservationEvents(@Channel("reservations-out") MutinyEmitter<JsonObject> reservationEmitter,
+                             AvailabilityIndex availabilityIndex,
+                             AvailabilityFeed availabilityFeed,
+                             @ConfigProperty(name = "quarkus.uuid") String instanceId) {
+        this.reservationEmitter = reservationEmitter;
+        this.availabilityIndex = availabilityIndex;
+        this.availabilityFeed = availabilityFeed;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * Applies the committed reservations to this instance right away and
+     * publishes them to the other ones.
+     */
+    public void reserved(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            apply(reservation);
+            reservationEmitter.sendAndForget(new JsonObject()
+                .put("instance", instanceId)
+                .put("carId", reservation.carId)
+                .put("startDay", reservation.startDay.toString())
+                .put("endDay", reservation.endDay.toString()));
+        }
+    }
+
+    @Incoming("reservations-in")
+    public void onReservation(JsonObject event) {
+        // the reservations of this instance are already applied
+        if (instanceId.equals(event.getString("instance"))) {
+            return;
+        }
+        Log.debug("Applying the reservation of another instance " + event);
+        Reservation reservation = new Reservation();
+        reservation.carId = event.getLong("carId");
+        reservation.startDay = LocalDate.parse(event.getString("startDay"));
+        reservation.endDay = LocalDate.parse(event.getString("endDay"));
+        apply(reservation);
+    }
+
+    private void apply(Reservation reservation) {
+        availabilityIndex.add(reservation);
+        availabilityFeed.reserved(reservation);
+    }
+}
@@ -0,0 +1,84 @@
+package org.acme.reservation.billing;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.reservation.entity.OutboxInvoice;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Drains the invoice outbox to the invoices exchange. The invoices are
+ * claimed in a short transaction, published after its commit and deleted
+ * in a second transaction once RabbitMQ confirmed them, so a stalled
+ * broker holds neither a connection nor the row locks. A crash or an
+ * unconfirmed invoice can cause a duplicate invoice but never a lost one:
+ * the claim expires and the invoice is published again.
+ */
+@ApplicationScoped
+public class InvoiceOutboxRelay {
+
+    private final MutinyEmitter<JsonObject> invoiceEmitter;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration claimTimeout;
+
+    public InvoiceOutboxRelay(@Channel("invoices") MutinyEmitter<JsonObject> invoiceEmitter,
+                              @ConfigProperty(name = "invoice-outbox.batch-size", defaultValue = "100")
+                              int batchSize,
+                              @ConfigProperty(name = "invoice-outbox.send-timeout", defaultValue = "10s")
+                              Duration sendTimeout,
+                              @ConfigProperty(name = "invoice-outbox.claim-timeout", defaultValue = "60s")
+                              Duration claimTimeout) {
+        this.invoiceEmitter = invoiceEmitter;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.claimTimeout = claimTimeout;
+    }
+
+    /**
+     * Drains the outbox batch after batch until a batch comes back shorter
+     * than batchSize, so a backlog is not limited to one batch per tick.
+     */
+    @Scheduled(every = "${invoice-outbox.interval:1s}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> relay() {
+        return Panache.withTransaction(() -> OutboxInvoice.claimNextBatch(batchSize, claimTimeout))
+            .call(this::publish)
+            .chain(invoices -> invoices.size() == batchSize
+                ? relay()
+                : Uni.createFrom().voidItem());
+    }
+
+    private Uni<Void> publish(List<OutboxInvoice> invoices) {
+        if (invoices.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        // send() completes when the broker confirms the message, the
+        // unconfirmed invoices stay claimed until the claim expires
+        return Multi.createFrom().iterable(invoices)
+            .onItem().transformToUniAndMerge(invoice -> invoiceEmitter
+                .send(new JsonObject(invoice.payload))
+                .ifNoItem().after(sendTimeout).fail()
+                .replaceWith(invoice.id)
+                // a null item is dropped, so only the confirmed ids are deleted
+                .onFailure().recoverWithItem(failure -> {
+                    Log.warn("Unable to publish invoice " + invoice.id, failure);
+                    return null;
+                }))
+            .collect().asList()
+            .chain(ids -> ids.isEmpty()
+                ? Uni.createFrom().item(0L)
+                : Panache.withTransaction(() -> OutboxInvoice.delete("id in ?1", ids)))
+            .invoke(deleted -> Log.info("Published " + deleted + " invoices"))
+            .replaceWithVoid();
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme.reservation.entity;
+
+import io.quarkus.hibernate.reactive.panache.PanacheEntity;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.LockModeType;
+import org.acme.reservation.billing.Invoice;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Invoice waiting to be published, written in the same transaction as its
+ * reservation so that it is sent if and only if the reservation commits.
+ */
+@Entity
+public class OutboxInvoice extends PanacheEntity {
+
+    @Column(length = 2048)
+    public String payload;
+    public Instant claimedUntil;
+
+    public static OutboxInvoice of(Invoice invoice) {
+        OutboxInvoice outboxInvoice = new OutboxInvoice();
+        outboxInvoice.payload = JsonObject.mapFrom(invoice).encode();
+        return outboxInvoice;
+    }
+
+    /**
+     * Claim the oldest unclaimed invoices of the outbox until the given
+     * timeout, skipping the ones locked by another instance. The claim is
+     * committed with the transaction, so the invoices can be published
+     * outside of it. The invoices whose claim expires, e.g. because the
+     * broker did not confirm them, are claimed again.
+     */
+    public static Uni<List<OutboxInvoice>> claimNextBatch(int size, Duration claimTimeout) {
+        Instant now = Instant.now();
+        return OutboxInvoice.<OutboxInvoice>find("claimedUntil is null or claimedUntil <= ?1",
+                Sort.by("id"), now)
+            .page(Page.ofSize(size))
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint(AvailableSettings.JAKARTA_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+            .list()
+            .invoke(invoices -> invoices.forEach(invoice ->
+                invoice.claimedUntil = now.plus(claimTimeout)));
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxInvoice{" +
+            "id=" + id +
+            ", payload='" + payload + '\'' +
+            '}';
+    }
+}
@@ -1,17 +1,76 @@
 package org.acme.reservation.entity;
 
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.hibernate.reactive.panache.PanacheEntity;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Table;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "reservation_car_days_idx", columnList = "carId, startDay, endDay"),
+    @Index(name = "reservation_days_idx", columnList = "endDay, startDay"),
+    @Index(name = "reservation_rental_status_idx", columnList = "rentalStatus")
+})
 public class Reservation extends PanacheEntity {
 
+    /**
+     * Exclusion constraint that forbids overlapping reservations of the
+     * same car, created by import.sql.
+     */
+    public static final String OVERLAP_CONSTRAINT = "reservation_no_overlap";
+
     public Long carId;
     public String userId;
     public LocalDate startDay;
     public LocalDate endDay;
+    @Enumerated(EnumType.STRING)
+    public RentalStatus rentalStatus;
+    public int rentalStartAttempts;
+    /**
+     * When the rental start is due again: the end of the claim of a
+     * STARTING reservation, or the end of the backoff of a PENDING one.
+     */
+    public Instant nextRentalStartAt;
+
+    /**
+     * Progress of the start of the rental of a reservation starting on the
+     * day it is made, null for the other reservations. STARTING is the
+     * claim of a start in progress, FAILED means the attempts ran out.
+     */
+    public enum RentalStatus {
+        PENDING, STARTING, STARTED, FAILED
+    }
+
+    /**
+     * Claim the start of the rental until the given instant. A claim that
+     * is not resolved by then, e.g. because the instance crashed, is due
+     * again.
+     */
+    public void claimRentalStart(Instant until) {
+        rentalStatus = RentalStatus.STARTING;
+        nextRentalStartAt = until;
+    }
 
     /**
      * Check if the given duration overlaps with this reservation
@@ -23,6 +82,141 @@ public class Reservation extends PanacheEntity {
             this.startDay.isAfter(endDay)));
     }
 
+    /**
+     * Find the ids of the cars with at least one reservation that overlaps
+     * the given duration. Same overlap rule as {@link #isReserved}, but
+     * evaluated by the database with a range scan of reservation_days_idx
+     * on the end day.
+     * @return the distinct ids of the reserved cars
+     */
+    public static Uni<List<Long>> findReservedCarIds(LocalDate startDay,
+                                                     LocalDate endDay) {
+        return Panache.getSession().chain(session -> session
+            .createSelectionQuery("select distinct r.carId from Reservation r " +
+                "where r.startDay <= :endDay and r.endDay >= :startDay", Long.class)
+            .setParameter("startDay", startDay)
+            .setParameter("endDay", endDay)
+            .getResultList());
+    }
+
+    /**
+     * Find the reservations of the given batch that overlap either an
+     * existing reservation or a previous reservation of the batch for the
+     * same car. The existing reservations are loaded with a single query.
+     * @return the conflicting reservations of the batch
+     */
+    public static Uni<List<Reservation>> findConflicts(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        Set<Long> carIds = new HashSet<>();
+        LocalDate from = reservations.get(0).startDay;
+        LocalDate to = reservations.get(0).endDay;
+        for (Reservation reservation : reservations) {
+            carIds.add(reservation.carId);
+            from = reservation.startDay.isBefore(from) ? reservation.startDay : from;
+            to = reservation.endDay.isAfter(to) ? reservation.endDay : to;
+        }
+
+        return Reservation.<Reservation>list("carId in ?1 and startDay <= ?2 and endDay >= ?3",
+                carIds, to, from)
+            .map(existing -> {
+                Map<Long, List<Reservation>> reservationsByCar = new HashMap<>();
+                for (Reservation reservation : existing) {
+                    reservationsByCar.computeIfAbsent(reservation.carId,
+                        carId -> new ArrayList<>()).add(reservation);
+                }
+                List<Reservation> conflicts = new ArrayList<>();
+                for (Reservation reservation : reservations) {
+                    List<Reservation> carReservations = reservationsByCar
+                        .computeIfAbsent(reservation.carId, carId -> new ArrayList<>());
+                    if (carReservations.stream().anyMatch(other ->
+                            other.isReserved(reservation.startDay, reservation.endDay))) {
+                        conflicts.add(reservation);
+                    }
+                    carReservations.add(reservation);
+                }
+                return conflicts;
+            });
+    }
+
+    /**
+     * @return true if the given failure was caused by a reservation that
+     * violates {@link #OVERLAP_CONSTRAINT}
+     */
+    public static boolean isOverlapViolation(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null
+                && cause.getMessage().contains(OVERLAP_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Claim the oldest reservations whose rental start is due, skipping the
+     * ones locked by another instance. The claim is committed with the
+     * transaction, so the rentals can then be started outside of it.
+     */
+    public static Uni<List<Reservation>> claimDueRentalStarts(int size, Duration claimTimeout) {
+        Instant now = Instant.now();
+        return Reservation.<Reservation>find("rentalStatus in ?1 " +
+                    "and (nextRentalStartAt is null or nextRentalStartAt <= ?2)", Sort.by("id"),
+                List.of(RentalStatus.PENDING, RentalStatus.STARTING), now)
+            .page(Page.ofSize(size))
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint(AvailableSettings.JAKARTA_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+            .list()
+            .invoke(reservations -> reservations.forEach(reservation ->
+                reservation.claimRentalStart(now.plus(claimTimeout))));
+    }
+
+    public static Uni<Integer> markRentalStarted(Long id) {
+        return update("rentalStatus = ?1, nextRentalStartAt = null where id = ?2",
+            RentalStatus.STARTED, id);
+    }
+
+    /**
+     * Record a failed rental start: the reservation is PENDING again until
+     * the given instant, or FAILED when nextAttemptAt is null.
+     */
+    public static Uni<Integer> markRentalStartFailed(Long id, int attempts, Instant nextAttemptAt) {
+        return update("rentalStatus = ?1, rentalStartAttempts = ?2, nextRentalStartAt = ?3 where id = ?4",
+            nextAttemptAt == null ? RentalStatus.FAILED : RentalStatus.PENDING,
+            attempts, nextAttemptAt, id);
+    }
+
+    /**
+     * Keyset pagination on the id.
+     * @param afterId the id of the last reservation of the previous page,
+     * null for the first page
+     * @return at most size reservations with an id greater than afterId
+     */
+    public static Uni<List<Reservation>> findPage(Long afterId, int size) {
+        return Reservation.<Reservation>find("id > ?1", Sort.by("id"),
+                afterId == null ? Long.MIN_VALUE : afterId)
+            .page(Page.ofSize(size))
+            .list();
+    }
+
+    /**
+     * Stream all the reservations by id, loading one page at a time so
+     * that at most pageSize reservations are held in memory.
+     */
+    public static Multi<Reservation> streamAll(int pageSize) {
+        AtomicLong cursor = new AtomicLong(Long.MIN_VALUE);
+        return Multi.createBy().repeating()
+            .uni(() -> Panache.withSession(() -> findPage(cursor.get(), pageSize))
+                .invoke(page -> {
+                    if (!page.isEmpty()) {
+                        cursor.set(page.get(page.size() - 1).id);
+                    }
+                }))
+            .whilst(page -> page.size() == pageSize)
+            .onItem().disjoint();
+    }
+
     @Override
     public String toString() {
         return "Reservation{" +
@@ -31,6 +225,8 @@ public class Reservation extends PanacheEntity {
             ", userId='" + userId + '\'' +
             ", startDay=" + startDay +
             ", endDay=" + endDay +
+            ", rentalStatus=" + rentalStatus +
+            ", rentalStartAttempts=" + rentalStartAttempts +
             '}';
     }
-}
\ No newline at end of file
+}
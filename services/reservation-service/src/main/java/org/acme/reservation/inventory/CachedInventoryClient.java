@@ -0,0 +1,52 @@
+package org.acme.reservation.inventory;
+
+import io.quarkus.cache.CacheResult;
+import io.quarkus.logging.Log;
+import io.smallrye.graphql.client.GraphQLClient;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+
+/**
+ * Caches the car list of the inventory. The cache expires after the
+ * configured TTL and is also invalidated by {@link FleetChangeListener}
+ * whenever the inventory adds or removes a car.
+ * The last car list received from the inventory is kept also after the
+ * cache expires, to answer when the inventory service is unavailable.
+ * The inventory is read through GraphQL, a persisted GraphQL query or
+ * gRPC according to the inventory.transport property.
+ */
+@ApplicationScoped
+public class CachedInventoryClient implements InventoryClient {
+
+    public static final String CACHE_NAME = "inventory-cars";
+
+    private final InventoryClient delegate;
+    private volatile List<Car> lastKnownCars = List.of();
+
+    public CachedInventoryClient(@ConfigProperty(name = "inventory.transport",
+                                     defaultValue = "graphql") String transport,
+                                 @GraphQLClient("inventory") GraphQLInventoryClient graphQLClient,
+                                 PersistedGraphQLInventoryClient persistedGraphQLClient,
+                                 GrpcInventoryClient grpcClient) {
+        this.delegate = switch (transport) {
+            case "grpc" -> grpcClient;
+            case "graphql-persisted" -> persistedGraphQLClient;
+            default -> graphQLClient;
+        };
+        Log.info("Reading the inventory through " + transport + ".");
+    }
+
+    @Override
+    @CacheResult(cacheName = CACHE_NAME)
+    public Uni<List<Car>> allCars() {
+        return delegate.allCars()
+            .invoke(cars -> lastKnownCars = cars);
+    }
+
+    public List<Car> lastKnownCars() {
+        return lastKnownCars;
+    }
+}
@@ -0,0 +1,42 @@
+package org.acme.reservation.inventory;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.reservation.availability.AvailabilityChange;
+import org.acme.reservation.availability.AvailabilityFeed;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+
+@ApplicationScoped
+public class FleetChangeListener {
+
+    private final Cache cache;
+    private final AvailabilityFeed availabilityFeed;
+
+    public FleetChangeListener(@CacheName(CachedInventoryClient.CACHE_NAME) Cache cache,
+                               AvailabilityFeed availabilityFeed) {
+        this.cache = cache;
+        this.availabilityFeed = availabilityFeed;
+    }
+
+    /**
+     * Updates of a car do not change its availability, so only additions
+     * and removals are forwarded to the availability feed.
+     */
+    @Incoming("fleet-changes")
+    public Uni<Void> onFleetChange(JsonObject change) {
+        Log.info("Invalidating the inventory cars after " + change);
+        return cache.invalidateAll()
+            .invoke(() -> {
+                String type = change.getString("type");
+                if (!"UPDATED".equals(type)) {
+                    availabilityFeed.fleetChanged(
+                        AvailabilityChange.Type.valueOf(type),
+                        change.getLong("carId"));
+                }
+            });
+    }
+}
@@ -0,0 +1,36 @@
+package org.acme.reservation.inventory;
+
+import io.quarkus.grpc.GrpcClient;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.inventory.model.CarResponse;
+import org.acme.inventory.model.InventoryService;
+import org.acme.inventory.model.ListCarsRequest;
+
+import java.util.List;
+
+/**
+ * Reads the cars through the binary gRPC API of the inventory, avoiding
+ * the JSON parsing and the query execution of the GraphQL endpoint.
+ */
+@ApplicationScoped
+public class GrpcInventoryClient implements InventoryClient {
+
+    private static final ListCarsRequest LIST_CARS = ListCarsRequest.getDefaultInstance();
+
+    @GrpcClient("inventory")
+    InventoryService inventoryService;
+
+    @Override
+    public Uni<List<Car>> allCars() {
+        return inventoryService.listCars(LIST_CARS)
+            .map(response -> response.getCarsList().stream()
+                .map(GrpcInventoryClient::toCar)
+                .toList());
+    }
+
+    private static Car toCar(CarResponse car) {
+        return new Car(car.getId(), car.getLicensePlateNumber(),
+            car.getManufacturer(), car.getModel());
+    }
+}
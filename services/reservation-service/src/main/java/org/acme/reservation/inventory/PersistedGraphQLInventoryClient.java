@@ -0,0 +1,50 @@
+package org.acme.reservation.inventory;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import java.util.List;
+
+/**
+ * Reads the cars through a query persisted by the inventory, sending only
+ * the hash of the query document instead of its text, so the inventory
+ * does not parse and validate the document on every request.
+ */
+@ApplicationScoped
+public class PersistedGraphQLInventoryClient implements InventoryClient {
+
+    /**
+     * SHA-256 of the cars document registered in the META-INF/graphql
+     * directory of inventory-service.
+     */
+    static final String CARS_QUERY_HASH =
+        "3f0cdbc1efb3787cfd43be14bac3ffac71733d2521f45093a4a80c865687359c";
+
+    private static final JsonObject CARS_REQUEST = new JsonObject()
+        .put("extensions", new JsonObject()
+            .put("persistedQuery", new JsonObject()
+                .put("version", 1)
+                .put("sha256Hash", CARS_QUERY_HASH)));
+
+    @RestClient
+    PersistedQueryClient persistedQueryClient;
+
+    @Override
+    public Uni<List<Car>> allCars() {
+        return persistedQueryClient.execute(CARS_REQUEST)
+            .map(response -> {
+                JsonArray errors = response.getJsonArray("errors");
+                if (errors != null && !errors.isEmpty()) {
+                    throw new IllegalStateException(
+                        "Persisted cars query failed: " + errors.encode());
+                }
+                JsonArray cars = response.getJsonObject("data").getJsonArray("cars");
+                return cars.stream()
+                    .map(car -> ((JsonObject) car).mapTo(Car.class))
+                    .toList();
+            });
+    }
+}
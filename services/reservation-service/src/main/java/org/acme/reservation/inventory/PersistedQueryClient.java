@@ -0,0 +1,19 @@
+package org.acme.reservation.inventory;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+
+/**
+ * Raw access to the GraphQL endpoint of the inventory, used to send
+ * persisted query requests that the typesafe client cannot express.
+ */
+@RegisterRestClient(configKey = "inventory-graphql")
+@Path("/graphql")
+public interface PersistedQueryClient {
+
+    @POST
+    Uni<JsonObject> execute(JsonObject request);
+}
@@ -6,6 +6,9 @@ import jakarta.ws.rs.Path;
 
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.jboss.resteasy.reactive.RestPath;
+import org.jboss.resteasy.reactive.RestQuery;
+
+import java.time.LocalDate;
 
 @RegisterRestClient(configKey = "rental")
 @Path("/rental")
@@ -14,4 +17,5 @@ public interface RentalClient {
     @POST
     @Path("/start/{userId}/{reservationId}")
     Uni<Rental> start(@RestPath String userId,
-                      @RestPath Long reservationId);}
+                      @RestPath Long reservationId,
+                      @RestQuery LocalDate endDay);}
@@ -0,0 +1,130 @@
+package org.acme.reservation.rental;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.reservation.entity.Reservation;
+import org.acme.reservation.rest.ReservationResource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Starts the rentals of the reservations left PENDING by
+ * {@link ReservationResource#make} and records the outcome in
+ * {@link Reservation#rentalStatus}.
+ * The reservations are claimed as STARTING in a short transaction and
+ * rental-service is called after its commit, so a slow rental-service
+ * holds neither a connection nor the row locks. A failed start is retried
+ * with exponential backoff, and the reservation is FAILED only once
+ * rental-start.max-attempts is reached. These give-ups are counted by the
+ * rental.start.failures metric. Starting a rental twice, e.g. after an
+ * expired claim, is harmless because rental-service upserts it.
+ */
+@ApplicationScoped
+public class RentalStartWorker {
+
+    private final RentalClient rentalClient;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration claimTimeout;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Counter failures;
+
+    public RentalStartWorker(@RestClient RentalClient rentalClient,
+                             MeterRegistry registry,
+                             @ConfigProperty(name = "rental-start.batch-size", defaultValue = "100")
+                             int batchSize,
+                             @ConfigProperty(name = "rental-start.max-attempts", defaultValue = "10")
+                             int maxAttempts,
+                             @ConfigProperty(name = "rental-start.claim-timeout", defaultValue = "60s")
+                             Duration claimTimeout,
+                             @ConfigProperty(name = "rental-start.backoff", defaultValue = "1s")
+                             Duration backoff,
+                             @ConfigProperty(name = "rental-start.max-backoff", defaultValue = "5m")
+                             Duration maxBackoff) {
+        this.rentalClient = rentalClient;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeout = claimTimeout;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.failures = Counter.builder("rental.start.failures")
+            .description("Rentals that could not be started after all the attempts")
+            .register(registry);
+    }
+
+    public Duration claimTimeout() {
+        return claimTimeout;
+    }
+
+    @Scheduled(every = "${rental-start.interval:1s}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> startPendingRentals() {
+        return Panache.withTransaction(() -> Reservation.claimDueRentalStarts(batchSize, claimTimeout))
+            .onItem().transformToUni(this::start);
+    }
+
+    private Uni<Void> start(List<Reservation> reservations) {
+        return Multi.createFrom().iterable(reservations)
+            .onItem().transformToUni(this::start)
+            .merge(ReservationResource.MAX_CONCURRENT_RENTAL_STARTS)
+            .collect().asList()
+            .replaceWithVoid();
+    }
+
+    /**
+     * Start the rental of a reservation claimed as STARTING and record the
+     * outcome in its own transaction. Never fails: a failed start is left
+     * to the next attempts.
+     */
+    public Uni<Reservation> start(Reservation reservation) {
+        return rentalClient.start(reservation.userId, reservation.id, reservation.endDay)
+            .onItem().transformToUni(rental -> {
+                Log.info("Successfully started rental " + rental);
+                reservation.rentalStatus = Reservation.RentalStatus.STARTED;
+                reservation.nextRentalStartAt = null;
+                return Panache.withTransaction(() -> Reservation.markRentalStarted(reservation.id));
+            })
+            .onFailure().recoverWithUni(failure -> failed(reservation, failure))
+            .replaceWith(reservation)
+            .onFailure().recoverWithItem(failure -> {
+                Log.error("Unable to record the rental start of " + reservation, failure);
+                return reservation;
+            });
+    }
+
+    private Uni<Integer> failed(Reservation reservation, Throwable failure) {
+        int attempts = reservation.rentalStartAttempts + 1;
+        Instant nextAttemptAt = null;
+        if (attempts < maxAttempts) {
+            nextAttemptAt = Instant.now().plus(backoff(attempts));
+            Log.warn("Unable to start the rental of " + reservation + ", attempt " + attempts
+                + " of " + maxAttempts + ", retrying at " + nextAttemptAt, failure);
+            reservation.rentalStatus = Reservation.RentalStatus.PENDING;
+        } else {
+            Log.error("Giving up starting the rental of " + reservation + " after "
+                + attempts + " attempts", failure);
+            failures.increment();
+            reservation.rentalStatus = Reservation.RentalStatus.FAILED;
+        }
+        reservation.rentalStartAttempts = attempts;
+        reservation.nextRentalStartAt = nextAttemptAt;
+        Instant due = nextAttemptAt;
+        return Panache.withTransaction(() -> Reservation.markRentalStartFailed(reservation.id, attempts, due));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
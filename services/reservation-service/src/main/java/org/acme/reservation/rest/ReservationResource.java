@@ -1,26 +1,44 @@
 package org.acme.reservation.rest;
 
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.logging.Log;
-import io.smallrye.graphql.client.GraphQLClient;
+import io.smallrye.faulttolerance.api.CircuitBreakerName;
+import io.smallrye.faulttolerance.api.ExponentialBackoff;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.reservation.availability.AvailabilityChange;
+import org.acme.reservation.availability.AvailabilityFeed;
+import org.acme.reservation.availability.AvailabilityIndex;
+import org.acme.reservation.availability.ReservationEvents;
+import org.acme.reservation.billing.Invoice;
+import org.acme.reservation.entity.OutboxInvoice;
 import org.acme.reservation.entity.Reservation;
+import org.acme.reservation.inventory.CachedInventoryClient;
 import org.acme.reservation.inventory.Car;
-import org.acme.reservation.inventory.GraphQLInventoryClient;
-import org.acme.reservation.inventory.InventoryClient;
-import org.acme.reservation.rental.RentalClient;
+import org.acme.reservation.rental.RentalStartWorker;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Retry;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.jboss.resteasy.reactive.RestMediaType;
+import org.jboss.resteasy.reactive.RestPath;
 import org.jboss.resteasy.reactive.RestQuery;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -32,36 +50,164 @@ import java.util.Map;
 public class ReservationResource {
 
     public static final double STANDARD_RATE_PER_DAY = 19.99;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_CONCURRENT_RENTAL_STARTS = 8;
 
-    private final InventoryClient inventoryClient;
-    private final RentalClient rentalClient;
+    private final CachedInventoryClient inventoryClient;
+    private final RentalStartWorker rentalStartWorker;
+    private final AvailabilityIndex availabilityIndex;
+    private final AvailabilityFeed availabilityFeed;
+    private final ReservationEvents reservationEvents;
+    private final boolean asyncRentalStart;
 
 
 
-    public ReservationResource(@GraphQLClient("inventory") GraphQLInventoryClient inventoryClient,
-                                @RestClient RentalClient rentalClient) {
+    public ReservationResource(CachedInventoryClient inventoryClient,
+                                RentalStartWorker rentalStartWorker,
+                                AvailabilityIndex availabilityIndex,
+                                AvailabilityFeed availabilityFeed,
+                                ReservationEvents reservationEvents,
+                                @ConfigProperty(name = "rental-start.async", defaultValue = "false")
+                                boolean asyncRentalStart) {
         this.inventoryClient = inventoryClient;
-        this.rentalClient = rentalClient;
+        this.rentalStartWorker = rentalStartWorker;
+        this.availabilityIndex = availabilityIndex;
+        this.availabilityFeed = availabilityFeed;
+        this.reservationEvents = reservationEvents;
+        this.asyncRentalStart = asyncRentalStart;
     }
 
+    /**
+     * Overlapping reservations of the same car are rejected with 409.
+     * The conflict query rejects them cheaply in the common case, while the
+     * exclusion constraint of the table catches the concurrent ones.
+     */
     @Consumes(MediaType.APPLICATION_JSON)
     @POST
-    @WithTransaction
     public Uni<Reservation> make(Reservation reservation) {
         reservation.userId = "guest";
-        return reservation.<Reservation>persist()
-            .onItem().transformToUni(persistedReservation -> {
-                Log.info("Successfully reserved reservation " + persistedReservation);
-                if (persistedReservation.startDay.equals(LocalDate.now())) {
-                    return rentalClient.start(persistedReservation.userId, persistedReservation.id)
-                        .onItem().invoke(rental -> Log.info("Successfully started rental " + rental))
-                        .replaceWith(persistedReservation);
-                }
-                return Uni.createFrom().item(persistedReservation);
-            });
+        prepareRentalStart(reservation);
+        return Panache.withTransaction(() -> Reservation.findConflicts(List.of(reservation))
+                .onItem().transformToUni(conflicts -> conflicts.isEmpty()
+                    ? reservation.<Reservation>persistAndFlush()
+                    : Uni.createFrom().failure(conflict(conflicts)))
+                .onFailure(Reservation::isOverlapViolation).transform(e -> conflict(List.of(reservation)))
+                // the invoice is published by the outbox relay after commit
+                .call(persistedReservation -> OutboxInvoice.of(new Invoice(persistedReservation,
+                    computePrice(persistedReservation))).persist()))
+            .call(persistedReservation -> reserved(List.of(persistedReservation)));
     }
 
-    @Retry(maxRetries = 25, delay = 1000)
+    /**
+     * Reserve all the given cars in a single transaction, or none of them
+     * if any reservation overlaps an existing one or another one of the
+     * batch. The rentals starting today are started concurrently after the
+     * commit, at most MAX_CONCURRENT_RENTAL_STARTS at a time.
+     */
+    @Consumes(MediaType.APPLICATION_JSON)
+    @POST
+    @Path("batch")
+    public Uni<List<Reservation>> makeBatch(List<Reservation> reservations) {
+        reservations.forEach(reservation -> {
+            reservation.userId = "guest";
+            prepareRentalStart(reservation);
+        });
+        return Panache.withTransaction(() -> Reservation.findConflicts(reservations)
+                .onItem().transformToUni(conflicts -> {
+                    if (!conflicts.isEmpty()) {
+                        return Uni.createFrom().failure(conflict(conflicts));
+                    }
+                    return Reservation.persist(reservations)
+                        .chain(() -> Reservation.flush());
+                })
+                .onFailure(Reservation::isOverlapViolation).transform(e -> conflict(reservations))
+                .call(() -> OutboxInvoice.persist(reservations.stream()
+                    .map(reservation -> OutboxInvoice.of(new Invoice(reservation,
+                        computePrice(reservation))))
+                    .toList())))
+            .call(() -> reserved(reservations))
+            .replaceWith(reservations);
+    }
+
+    /**
+     * Mark the rental of a reservation starting today to be started, before
+     * the reservation is persisted so that the status is part of its
+     * insert. In asynchronous mode it is left PENDING for
+     * {@link RentalStartWorker}, otherwise it is claimed as STARTING by
+     * this request.
+     */
+    private void prepareRentalStart(Reservation reservation) {
+        if (!reservation.startDay.equals(LocalDate.now())) {
+            return;
+        }
+        if (asyncRentalStart) {
+            reservation.rentalStatus = Reservation.RentalStatus.PENDING;
+        } else {
+            reservation.claimRentalStart(Instant.now().plus(rentalStartWorker.claimTimeout()));
+        }
+    }
+
+    /**
+     * Side effects of committed reservations: they are shared with the
+     * availability index and feed of every instance, and the rentals
+     * claimed by this request are started. A rental that fails to start is
+     * retried by {@link RentalStartWorker}.
+     */
+    private Uni<List<Reservation>> reserved(List<Reservation> reservations) {
+        Log.info("Successfully reserved " + reservations.size() + " reservations");
+        reservationEvents.reserved(reservations);
+        return Multi.createFrom().iterable(reservations)
+            .select().where(reservation -> reservation.rentalStatus == Reservation.RentalStatus.STARTING)
+            .onItem().transformToUni(rentalStartWorker::start)
+            .merge(MAX_CONCURRENT_RENTAL_STARTS)
+            .collect().asList();
+    }
+
+    private static double computePrice(Reservation reservation) {
+        return (ChronoUnit.DAYS.between(reservation.startDay,
+            reservation.endDay) + 1) * STANDARD_RATE_PER_DAY;
+    }
+
+    private static ClientErrorException conflict(List<Reservation> conflicts) {
+        return new ClientErrorException("Conflicting reservations " + conflicts,
+            Response.Status.CONFLICT);
+    }
+
+    /**
+     * Server-Sent Events with the cars that become available or
+     * unavailable in the given duration, so that clients can update the
+     * result of availability without asking for it again.
+     */
+    @GET
+    @Path("availability/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<AvailabilityChange> availabilityChanges(@RestQuery LocalDate startDate,
+                                                         @RestQuery LocalDate endDate) {
+        return availabilityFeed.changes(startDate, endDate);
+    }
+
+    /**
+     * Clients poll this to follow the rentalStatus of a reservation.
+     */
+    @GET
+    @Path("{id}")
+    public Uni<Reservation> get(@RestPath Long id) {
+        return Reservation.<Reservation>findById(id)
+            .onItem().ifNull().failWith(() -> new NotFoundException("Reservation not found"));
+    }
+
+    /**
+     * A slow inventory must not hold the request: each attempt has its own
+     * timeout, retries back off exponentially with jitter and all of them
+     * have to fit in the maxDuration budget of the request.
+     */
+    @Timeout(1000)
+    @Retry(maxRetries = 3, delay = 100, jitter = 50, maxDuration = 3000)
+    @ExponentialBackoff(maxDelay = 1000)
+    @CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 5000)
+    @CircuitBreakerName("availability")
     @Fallback(fallbackMethod = "availabilityFallback")
     @GET
     @Path("availability")
@@ -69,11 +215,24 @@ public class ReservationResource {
                                             @RestQuery LocalDate endDate) {
         Log.info("Entering availability method with startDate: " + startDate + ", endDate: " + endDate);
         // obtain all cars from inventory
-        Uni<List<Car>> availableCarsUni = inventoryClient.allCars();
-        // get all current reservations
-        Uni<List<Reservation>> reservationsUni = Reservation.listAll();
+        return availableCars(inventoryClient.allCars(), startDate, endDate);
+    }
 
-        return Uni.combine().all().unis(availableCarsUni, reservationsUni).with((availableCars, reservations) -> {
+    public Uni<Collection<Car>> availabilityFallback(LocalDate startDate,
+                                                    LocalDate endDate) {
+        Log.warn("Inventory service unavailable, using the last known cars.");
+        return availableCars(Uni.createFrom().item(inventoryClient.lastKnownCars()),
+            startDate, endDate);
+    }
+
+    private Uni<Collection<Car>> availableCars(Uni<List<Car>> availableCarsUni,
+                                               LocalDate startDate, LocalDate endDate) {
+        // get the cars reserved in the requested period, from the database while the index is warming up
+        Uni<List<Long>> reservedCarIdsUni = availabilityIndex.isReady()
+            ? Uni.createFrom().item(availabilityIndex.findReservedCarIds(startDate, endDate))
+            : Reservation.findReservedCarIds(startDate, endDate);
+
+        return Uni.combine().all().unis(availableCarsUni, reservedCarIdsUni).with((availableCars, reservedCarIds) -> {
             Log.info("Received " + availableCars.size() + " cars from inventory service.");
             // create a map from id to car
             Map<Long, Car> carsById = new HashMap<>();
@@ -81,25 +240,31 @@ public class ReservationResource {
                 carsById.put(car.id, car);
             }
 
-            // for each reservation, remove the car from the map
-            for (Reservation reservation : reservations) {
-                if (reservation.isReserved(startDate, endDate)) {
-                    carsById.remove(reservation.carId);
-                }
+            // remove the cars reserved in the requested period
+            for (Long carId : reservedCarIds) {
+                carsById.remove(carId);
             }
             Log.info("Returning " + carsById.values().size() + " available cars after filtering reservations.");
             return carsById.values();
         });
     }
 
-    public Uni<Collection<Car>> availabilityFallback(LocalDate startDate,
-                                                    LocalDate endDate) {
-        return Uni.createFrom().item(List.of());
+    /**
+     * One page of reservations ordered by id. The next page is requested
+     * passing the id of the last reservation of this page as after.
+     */
+    @GET
+    @Path("all")
+    public Uni<List<Reservation>> allReservations(@RestQuery Long after,
+                                                  @RestQuery @DefaultValue("" + DEFAULT_PAGE_SIZE) int size) {
+        return Reservation.findPage(after, Math.clamp(size, 1, MAX_PAGE_SIZE));
     }
 
     @GET
-    @Path("all")
-    public Uni<List<Reservation>> allReservations() {
-        return Reservation.<Reservation>listAll();
+    @Path("all/stream")
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<Reservation> streamReservations() {
+        return Reservation.streamAll(DEFAULT_PAGE_SIZE);
     }
 }
\ No newline at end of file
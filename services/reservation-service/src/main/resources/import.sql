@@ -0,0 +1,2 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+ALTER TABLE Reservation ADD CONSTRAINT reservation_no_overlap EXCLUDE USING gist (carId WITH =, daterange(startDay, endDay, '[]') WITH &&);
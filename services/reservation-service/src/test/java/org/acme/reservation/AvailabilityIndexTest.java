@@ -0,0 +1,47 @@
+package org.acme.reservation;
+
+import org.acme.reservation.availability.AvailabilityIndex;
+import org.acme.reservation.entity.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class AvailabilityIndexTest {
+
+    @Test
+    public void testFindReservedCarIds() {
+        AvailabilityIndex index = new AvailabilityIndex(true);
+        index.add(reservation(1L, "2025-03-20", "2025-03-29"));
+        index.add(reservation(1L, "2025-01-01", "2025-01-02"));
+        index.add(reservation(2L, "2025-02-10", "2025-02-12"));
+
+        Assertions.assertEquals(List.of(1L), index.findReservedCarIds(
+            LocalDate.parse("2025-03-29"), LocalDate.parse("2025-04-05")));
+        Assertions.assertEquals(List.of(), index.findReservedCarIds(
+            LocalDate.parse("2025-01-03"), LocalDate.parse("2025-02-09")));
+        Assertions.assertEquals(List.of(2L), index.findReservedCarIds(
+            LocalDate.parse("2025-02-11"), LocalDate.parse("2025-02-11")));
+    }
+
+    @Test
+    public void testLongReservationCoversLaterStarts() {
+        AvailabilityIndex index = new AvailabilityIndex(true);
+        index.add(reservation(3L, "2025-01-01", "2025-12-31"));
+        index.add(reservation(3L, "2025-02-01", "2025-02-02"));
+
+        // the second interval ends early, the first one still overlaps
+        Assertions.assertEquals(List.of(3L), index.findReservedCarIds(
+            LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-10")));
+    }
+
+    private static Reservation reservation(Long carId, String startDay,
+                                           String endDay) {
+        Reservation reservation = new Reservation();
+        reservation.carId = carId;
+        reservation.startDay = LocalDate.parse(startDay);
+        reservation.endDay = LocalDate.parse(endDay);
+        return reservation;
+    }
+}
@@ -36,4 +36,24 @@ public class ReservationPersistenceTest {
                     persistedReservation.carId);
             });
     }
+
+    @Test
+    @RunOnVertxContext
+    public void testFindReservedCarIds(TransactionalUniAsserter asserter) {
+        Reservation reservation = new Reservation();
+        reservation.startDay = LocalDate.now().plus(20, ChronoUnit.DAYS);
+        reservation.endDay = LocalDate.now().plus(25, ChronoUnit.DAYS);
+        reservation.carId = 512L;
+
+        asserter.execute(() -> reservation.persist());
+
+        asserter.assertThat(() -> Reservation.findReservedCarIds(
+                LocalDate.now().plus(25, ChronoUnit.DAYS),
+                LocalDate.now().plus(30, ChronoUnit.DAYS)),
+            carIds -> Assertions.assertTrue(carIds.contains(512L)));
+        asserter.assertThat(() -> Reservation.findReservedCarIds(
+                LocalDate.now().plus(26, ChronoUnit.DAYS),
+                LocalDate.now().plus(30, ChronoUnit.DAYS)),
+            carIds -> Assertions.assertFalse(carIds.contains(512L)));
+    }
 }
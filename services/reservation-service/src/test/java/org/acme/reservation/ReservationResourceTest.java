@@ -11,14 +11,19 @@ import io.smallrye.mutiny.Uni;
 import org.acme.reservation.inventory.Car;
 import org.acme.reservation.inventory.GraphQLInventoryClient;
 import org.acme.reservation.entity.Reservation;
+import org.acme.reservation.rental.RentalClient;
 import org.acme.reservation.rest.ReservationResource;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -34,6 +39,14 @@ public class ReservationResourceTest {
     @TestHTTPResource("availability")
     URL availability;
 
+    @TestHTTPEndpoint(ReservationResource.class)
+    @TestHTTPResource("all")
+    URL all;
+
+    @TestHTTPEndpoint(ReservationResource.class)
+    @TestHTTPResource("batch")
+    URL batch;
+
     @Test
     public void testReservationIds() {
         Reservation reservation = new Reservation();
@@ -99,4 +112,124 @@ public class ReservationResourceTest {
             .body("findAll { car -> car.id == " + car.id + "}", hasSize(0));
     }
 
+    @Test
+    public void testAllReservationsKeysetPagination() {
+        Reservation reservation = new Reservation();
+        reservation.carId = 777L;
+        reservation.startDay = LocalDate.parse("2025-05-01");
+        reservation.endDay = LocalDate.parse("2025-05-02");
+        Long firstId = RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(reservation)
+            .when().post(reservationResource)
+            .then().statusCode(200)
+            .extract().jsonPath().getLong("id");
+        reservation.startDay = LocalDate.parse("2025-05-03");
+        reservation.endDay = LocalDate.parse("2025-05-04");
+        Long secondId = RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(reservation)
+            .when().post(reservationResource)
+            .then().statusCode(200)
+            .extract().jsonPath().getLong("id");
+
+        // each page starts right after the cursor
+        RestAssured.given()
+            .queryParam("after", firstId - 1)
+            .queryParam("size", 1)
+            .when().get(all)
+            .then().statusCode(200)
+            .body("id", contains(firstId.intValue()));
+        RestAssured.given()
+            .queryParam("after", firstId)
+            .queryParam("size", 1)
+            .when().get(all)
+            .then().statusCode(200)
+            .body("id", contains(secondId.intValue()));
+    }
+
+    @Test
+    public void testBatchReservationRejectsConflicts() {
+        Reservation first = new Reservation();
+        first.carId = 888L;
+        first.startDay = LocalDate.parse("2025-06-01");
+        first.endDay = LocalDate.parse("2025-06-05");
+        Reservation second = new Reservation();
+        second.carId = 888L;
+        second.startDay = LocalDate.parse("2025-06-06");
+        second.endDay = LocalDate.parse("2025-06-08");
+
+        RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(List.of(first, second))
+            .when().post(batch)
+            .then().statusCode(200)
+            .body("id", everyItem(notNullValue()));
+
+        // the second reservation of this batch overlaps the first one above
+        Reservation third = new Reservation();
+        third.carId = 999L;
+        third.startDay = LocalDate.parse("2025-06-01");
+        third.endDay = LocalDate.parse("2025-06-02");
+        Reservation overlapping = new Reservation();
+        overlapping.carId = 888L;
+        overlapping.startDay = LocalDate.parse("2025-06-05");
+        overlapping.endDay = LocalDate.parse("2025-06-06");
+
+        RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(List.of(third, overlapping))
+            .when().post(batch)
+            .then().statusCode(409);
+    }
+
+    @Test
+    public void testOverlappingReservationIsRejected() {
+        Reservation reservation = new Reservation();
+        reservation.carId = 4242L;
+        reservation.startDay = LocalDate.parse("2025-07-01");
+        reservation.endDay = LocalDate.parse("2025-07-10");
+        RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(reservation)
+            .when().post(reservationResource)
+            .then().statusCode(200);
+
+        reservation.startDay = LocalDate.parse("2025-07-10");
+        reservation.endDay = LocalDate.parse("2025-07-12");
+        RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(reservation)
+            .when().post(reservationResource)
+            .then().statusCode(409);
+    }
+
+    @Test
+    public void testFailedRentalStartKeepsTheReservation() {
+        RentalClient mock = Mockito.mock(RentalClient.class);
+        Mockito.when(mock.start(Mockito.anyString(), Mockito.anyLong(), Mockito.any()))
+            .thenReturn(Uni.createFrom().failure(new RuntimeException("rental-service down")));
+        QuarkusMock.installMockForType(mock, RentalClient.class, RestClient.LITERAL);
+
+        Reservation reservation = new Reservation();
+        reservation.carId = 5151L;
+        reservation.startDay = LocalDate.now();
+        reservation.endDay = LocalDate.now().plusDays(1);
+
+        // the reservation is committed before the rental start, which is
+        // left to the worker
+        Long id = RestAssured.given()
+            .contentType(ContentType.JSON)
+            .body(reservation)
+            .when().post(reservationResource)
+            .then().statusCode(200)
+            .body("rentalStatus", is("PENDING"),
+                "rentalStartAttempts", is(1))
+            .extract().jsonPath().getLong("id");
+
+        RestAssured.given()
+            .when().get(reservationResource + "/" + id)
+            .then().statusCode(200)
+            .body("carId", is(5151));
+    }
 }
@@ -1,12 +1,17 @@
 package org.acme.users;
 
+import io.smallrye.mutiny.Multi;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import org.acme.users.model.AvailabilityChange;
 import org.acme.users.model.Car;
 import org.acme.users.model.Reservation;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import org.jboss.resteasy.reactive.RestQuery;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import java.time.LocalDate;
 import java.util.Collection;
@@ -17,7 +22,8 @@ public interface ReservationsClient {
 
     @GET
     @Path("all")
-    Collection<Reservation> allReservations();
+    Collection<Reservation> allReservations(@RestQuery Long after,
+                                            @RestQuery int size);
 
     @POST
     Reservation make(Reservation reservation);
@@ -26,4 +32,11 @@ public interface ReservationsClient {
     @Path("availability")
     Collection<Car> availability(@RestQuery LocalDate startDate,
                                 @RestQuery LocalDate endDate);
+
+    @GET
+    @Path("availability/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    Multi<AvailabilityChange> availabilityChanges(@RestQuery LocalDate startDate,
+                                                  @RestQuery LocalDate endDate);
 }
\ No newline at end of file
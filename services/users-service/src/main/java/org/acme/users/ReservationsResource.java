@@ -2,25 +2,32 @@ package org.acme.users;
 
 import io.quarkus.qute.CheckedTemplate;
 import io.quarkus.qute.TemplateInstance;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import org.acme.users.model.AvailabilityChange;
 import org.acme.users.model.Car;
 import org.acme.users.model.Reservation;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.resteasy.reactive.RestForm;
 import org.jboss.resteasy.reactive.RestQuery;
 import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 
 @Path("/")
 public class ReservationsResource {
 
+    public static final int PAGE_SIZE = 20;
+
     @CheckedTemplate
     public static class Templates {
         public static native TemplateInstance index(
@@ -29,7 +36,8 @@ public class ReservationsResource {
             String name);
 
         public static native TemplateInstance listofreservations(
-            Collection<Reservation> reservations);
+            Collection<Reservation> reservations,
+            Long next);
 
         public static native TemplateInstance availablecars(
             Collection<Car> cars,
@@ -66,10 +74,14 @@ public class ReservationsResource {
     @GET
     @Produces(MediaType.TEXT_HTML)
     @Path("/get")
-    public TemplateInstance getReservations() {
-        Collection<Reservation> reservationCollection
-            = client.allReservations();
-        return Templates.listofreservations(reservationCollection);
+    public TemplateInstance getReservations(@RestQuery Long after) {
+        List<Reservation> reservationPage
+            = List.copyOf(client.allReservations(after, PAGE_SIZE));
+        // a full page may be followed by another one
+        Long next = reservationPage.size() == PAGE_SIZE
+            ? reservationPage.get(PAGE_SIZE - 1).id
+            : null;
+        return Templates.listofreservations(reservationPage, next);
     }
 
     @GET
@@ -84,9 +96,24 @@ public class ReservationsResource {
             availableCars, startDate, endDate);
     }
 
+    /**
+     * Relays the availability changes of reservation-service to the page,
+     * that removes the reserved cars from the list as they happen.
+     */
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Path("/available/stream")
+    public Multi<AvailabilityChange> streamAvailableCars(
+        @RestQuery LocalDate startDate,
+        @RestQuery LocalDate endDate) {
+        return client.availabilityChanges(startDate, endDate);
+    }
+
     @POST
     @Produces(MediaType.TEXT_HTML)
     @Path("/reserve")
+    @RunOnVirtualThread
     public RestResponse<TemplateInstance> create(
         @RestForm LocalDate startDate,
         @RestForm LocalDate endDate,
@@ -97,9 +124,12 @@ public class ReservationsResource {
         reservation.carId = carId;
         startChoice.pass();
         startparallel.pass();
-        client.make(reservation);
+        Reservation made = client.make(reservation);
+        // the page that starts with the new reservation; the reserved car
+        // leaves the available list through /available/stream, and the
+        // refresh is the fallback for a page whose stream is not connected
         return RestResponse.ResponseBuilder
-            .ok(getReservations())
+            .ok(getReservations(made.id - 1))
             .header(
                 "HX-Trigger-After-Swap",
                 "update-available-cars-list")
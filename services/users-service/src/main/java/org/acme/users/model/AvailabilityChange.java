@@ -0,0 +1,10 @@
+package org.acme.users.model;
+
+import java.time.LocalDate;
+
+public class AvailabilityChange {
+    public String type;
+    public Long carId;
+    public LocalDate startDay;
+    public LocalDate endDay;
+}
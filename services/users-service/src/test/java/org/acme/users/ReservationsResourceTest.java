@@ -0,0 +1,55 @@
+package org.acme.users;
+
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit5.virtual.ShouldNotPin;
+import io.quarkus.test.junit5.virtual.VirtualThreadUnit;
+import org.acme.users.model.Reservation;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+@QuarkusTest
+@VirtualThreadUnit
+@ShouldNotPin
+public class ReservationsResourceTest {
+
+    @Test
+    public void testCreateShowsTheNewReservation() {
+        LocalDate startDay = LocalDate.now().plusDays(1);
+        Reservation made = new Reservation();
+        made.id = 41L;
+        made.carId = 7L;
+        made.startDay = startDay;
+        made.endDay = startDay.plusDays(2);
+
+        ReservationsClient reservations = Mockito.mock(ReservationsClient.class);
+        Mockito.when(reservations.make(ArgumentMatchers.any())).thenReturn(made);
+        Mockito.when(reservations.allReservations(40L, ReservationsResource.PAGE_SIZE))
+            .thenReturn(List.of(made));
+        QuarkusMock.installMockForType(reservations, ReservationsClient.class,
+            RestClient.LITERAL);
+        QuarkusMock.installMockForType(Mockito.mock(StartChoiceClient.class),
+            StartChoiceClient.class, RestClient.LITERAL);
+        QuarkusMock.installMockForType(Mockito.mock(StartParallelClient.class),
+            StartParallelClient.class, RestClient.LITERAL);
+
+        // the returned page starts with the new reservation
+        given()
+            .formParam("startDate", made.startDay.toString())
+            .formParam("endDate", made.endDay.toString())
+            .formParam("carId", made.carId)
+            .when().post("/reserve")
+            .then().statusCode(200)
+            .header("HX-Trigger-After-Swap", is("update-available-cars-list"))
+            .body(containsString("<td>41</td>"));
+    }
+}